@@ -0,0 +1,64 @@
+package stickman.benchmark;
+
+import stickman.level.Level;
+import stickman.level.LevelGenerator;
+import stickman.model.GameEngine;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Builds levels of a given size for the benchmarks. The same seed and size always give the same level.
+ */
+final class BenchmarkLevels {
+
+    /**
+     * The height of the floor in every benchmark level.
+     */
+    static final double FLOOR_HEIGHT = 400;
+
+    /**
+     * The seed used for every benchmark level.
+     */
+    private static final long SEED = 42;
+
+    private BenchmarkLevels() {
+    }
+
+    /**
+     * Gets the generator for a level holding the given number of entities.
+     * Roughly 80% of the entities are platforms, 15% slimes and 5% mushrooms.
+     */
+    private static LevelGenerator generator(int entityCount) {
+        int slimes = entityCount * 15 / 100;
+        return new LevelGenerator(SEED)
+                .setPlatforms(entityCount * 80 / 100)
+                .setMushrooms(entityCount * 5 / 100)
+                .setSlimes(slimes / 2, slimes - slimes / 2)
+                .setDimensions(0, 600, FLOOR_HEIGHT);
+    }
+
+    /**
+     * Builds a level directly through the LevelBuilder.
+     * @param entityCount The number of entities in the level
+     * @param model The GameEngine the level is part of (may be null)
+     * @return The level
+     */
+    static Level build(int entityCount, GameEngine model) {
+        return generator(entityCount).build("benchmark", model);
+    }
+
+    /**
+     * Writes a level in the JSON format read by LevelBuilderImpl.generateFromFile.
+     * @param entityCount The number of entities in the level
+     * @return The path of the temporary file
+     * @throws IOException If the file can't be written
+     */
+    static Path writeJson(int entityCount) throws IOException {
+        Path file = Files.createTempFile("stickman-benchmark-" + entityCount + "-", ".json");
+        file.toFile().deleteOnExit();
+        generator(entityCount).write(file);
+        return file;
+    }
+}
@@ -0,0 +1,45 @@
+package stickman.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import stickman.level.Level;
+import stickman.level.LevelBuilderImpl;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures LevelBuilderImpl.generateFromFile on level files of increasing size.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LoadBenchmark {
+
+    @Param({"100", "1000", "10000", "100000"})
+    public int entityCount;
+
+    private String file;
+
+    @Setup
+    public void writeLevel() throws IOException {
+        file = BenchmarkLevels.writeJson(entityCount).toString();
+    }
+
+    @Benchmark
+    public Level generateFromFile() {
+        return LevelBuilderImpl.generateFromFile(file, null);
+    }
+}
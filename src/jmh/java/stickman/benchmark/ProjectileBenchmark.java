@@ -0,0 +1,93 @@
+package stickman.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import stickman.entity.moving.MovingEntity;
+import stickman.entity.moving.other.Bullet;
+import stickman.entity.moving.other.Projectile;
+import stickman.entity.moving.player.Controllable;
+import stickman.level.Level;
+import stickman.level.SolidIndex;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures Projectile.movingCollision and staticCollision. The bullets are placed in the
+ * air above the slimes, so movingCollision always has to check every target.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProjectileBenchmark {
+
+    /**
+     * The number of bullet positions to cycle through.
+     */
+    private static final int BULLETS = 1024;
+
+    @Param({"100", "1000", "10000", "100000"})
+    public int entityCount;
+
+    private List<MovingEntity> targets;
+
+    private SolidIndex solids;
+
+    private Projectile[] bullets;
+
+    private int next;
+
+    @Setup
+    public void buildLevel() {
+        Level level = BenchmarkLevels.build(entityCount, null);
+        solids = level.getSolids();
+
+        targets = new ArrayList<>();
+        for (MovingEntity entity : level.getMoveEnt()) {
+            if (!(entity instanceof Controllable)) {
+                targets.add(entity);
+            }
+        }
+
+        Random random = new Random(7);
+        bullets = new Projectile[BULLETS];
+        for (int i = 0; i < BULLETS; i++) {
+            double x = random.nextDouble() * level.getWidth();
+            double y = BenchmarkLevels.FLOOR_HEIGHT - 40 - random.nextDouble() * 200;
+            bullets[i] = new Bullet(x, y, random.nextBoolean());
+        }
+    }
+
+    private Projectile nextBullet() {
+        next = (next + 1) & (BULLETS - 1);
+        return bullets[next];
+    }
+
+    @Benchmark
+    public Projectile movingCollision() {
+        Projectile bullet = nextBullet();
+        bullet.movingCollision(targets);
+        return bullet;
+    }
+
+    @Benchmark
+    public boolean staticCollision() {
+        Projectile bullet = nextBullet();
+        bullet.staticCollision(solids);
+        return bullet.isActive();
+    }
+}
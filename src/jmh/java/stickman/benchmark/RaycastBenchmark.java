@@ -0,0 +1,86 @@
+package stickman.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import stickman.entity.moving.MovingEntity;
+import stickman.entity.moving.enemy.DumbStrategy;
+import stickman.entity.moving.enemy.Slime;
+import stickman.level.Level;
+import stickman.level.SolidIndex;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures MovingEntity.horizontalRaycast and verticalRaycast from probes spread across the level.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RaycastBenchmark {
+
+    /**
+     * The number of probe positions to cycle through.
+     */
+    private static final int PROBES = 1024;
+
+    @Param({"100", "1000", "10000", "100000"})
+    public int entityCount;
+
+    private SolidIndex solids;
+
+    private MovingEntity[] probes;
+
+    private int next;
+
+    @Setup
+    public void buildLevel() {
+        Level level = BenchmarkLevels.build(entityCount, null);
+        solids = level.getSolids();
+
+        Random random = new Random(7);
+        probes = new MovingEntity[PROBES];
+        for (int i = 0; i < PROBES; i++) {
+            double x = random.nextDouble() * level.getWidth();
+            double y = BenchmarkLevels.FLOOR_HEIGHT - 20 - random.nextDouble() * 200;
+            probes[i] = new Slime("slimeBa.png", x, y, false, new DumbStrategy());
+        }
+    }
+
+    private MovingEntity nextProbe() {
+        next = (next + 1) & (PROBES - 1);
+        return probes[next];
+    }
+
+    @Benchmark
+    public double horizontalLeft() {
+        return nextProbe().horizontalRaycast(true, solids, 0);
+    }
+
+    @Benchmark
+    public double horizontalRight() {
+        return nextProbe().horizontalRaycast(false, solids, Double.MAX_VALUE);
+    }
+
+    @Benchmark
+    public double verticalUp() {
+        return nextProbe().verticalRaycast(true, solids, 0);
+    }
+
+    @Benchmark
+    public double verticalDown() {
+        return nextProbe().verticalRaycast(false, solids, BenchmarkLevels.FLOOR_HEIGHT);
+    }
+}
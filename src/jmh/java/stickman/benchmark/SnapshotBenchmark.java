@@ -0,0 +1,64 @@
+package stickman.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import stickman.level.Level;
+import stickman.model.GameManager;
+import stickman.model.GameMemento;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures LevelManager.copy and the GameManager memento round trip.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SnapshotBenchmark {
+
+    @Param({"100", "1000", "10000", "100000"})
+    public int entityCount;
+
+    private Level level;
+
+    private GameManager model;
+
+    private GameMemento memento;
+
+    @Setup
+    public void buildLevel() throws IOException {
+        level = BenchmarkLevels.build(entityCount, null);
+        model = new GameManager(Collections.singletonList(BenchmarkLevels.writeJson(entityCount).toString()));
+        memento = model.saveMemento();
+    }
+
+    @Benchmark
+    public Level copy() {
+        return level.copy();
+    }
+
+    @Benchmark
+    public GameMemento saveMemento() {
+        return model.saveMemento();
+    }
+
+    @Benchmark
+    public Level loadMemento() {
+        model.loadMemento(memento);
+        return model.getCurrentLevel();
+    }
+}
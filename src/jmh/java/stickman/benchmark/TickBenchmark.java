@@ -0,0 +1,54 @@
+package stickman.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import stickman.level.Level;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures LevelManager.tick on small, medium and huge levels.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TickBenchmark {
+
+    @Param({"100", "1000", "10000", "100000"})
+    public int entityCount;
+
+    /**
+     * The freshly built level, copied before each iteration so every iteration starts from the same state.
+     */
+    private Level template;
+
+    private Level level;
+
+    @Setup(org.openjdk.jmh.annotations.Level.Trial)
+    public void buildLevel() {
+        template = BenchmarkLevels.build(entityCount, null);
+    }
+
+    @Setup(org.openjdk.jmh.annotations.Level.Iteration)
+    public void copyLevel() {
+        level = template.copy();
+        level.moveRight();
+    }
+
+    @Benchmark
+    public void tick() {
+        level.tick();
+    }
+}
@@ -4,12 +4,28 @@ import javafx.application.Application;
 import javafx.stage.Stage;
 import stickman.model.GameEngine;
 import stickman.model.GameManager;
+import stickman.model.InputPlayer;
+import stickman.model.InputRecorder;
+import stickman.model.InputReplayer;
+import stickman.model.LevelWatcher;
 import stickman.view.GameWindow;
 
+import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.Map;
 
 public class App extends Application {
 
+    /**
+     * Records the session, if started with --record=FILE.
+     */
+    private InputRecorder recorder;
+
+    /**
+     * Reloads levels as they are edited, if started with --watch=true.
+     */
+    private LevelWatcher watcher;
+
     /**
      * The main method for the program. Launches the application and creates a window.
      * @param args Command line arguments passed to the program
@@ -19,7 +35,7 @@ public class App extends Application {
     }
 
     @Override
-    public void start(Stage primaryStage) {
+    public void start(Stage primaryStage) throws IOException {
         Map<String, String> params = getParameters().getNamed();
 
         String s = "Java 11 sanity check";
@@ -28,8 +44,24 @@ public class App extends Application {
                     " as your code will fail to compile on Java 10 and below.");
         }
 
-        GameEngine model = new GameManager("levels/levels.json");
-        GameWindow window = new GameWindow(model, 640, 400);
+        GameManager manager = new GameManager("levels/levels.json");
+        GameEngine model = manager;
+
+        // Development mode: reload levels from the levels directory whenever they are saved
+        if (Boolean.parseBoolean(params.get("watch"))) {
+            watcher = new LevelWatcher(Paths.get("levels"), manager);
+        }
+
+        // Play back a recorded session (keyboard input is ignored), or record this one
+        if (params.containsKey("replay")) {
+            model = new InputReplayer(model, InputPlayer.read(Paths.get(params.get("replay"))));
+        } else if (params.containsKey("record")) {
+            recorder = new InputRecorder(model, Paths.get(params.get("record")));
+            model = recorder;
+        }
+
+        // Draw entities as scene graph nodes (the default) or onto one canvas with --renderer=canvas
+        GameWindow window = new GameWindow(model, 640, 400, params.getOrDefault("renderer", "scenegraph"));
         window.run();
 
         primaryStage.setTitle("Stickman");
@@ -38,4 +70,14 @@ public class App extends Application {
 
         window.run();
     }
+
+    @Override
+    public void stop() throws IOException {
+        if (recorder != null) {
+            recorder.close();
+        }
+        if (watcher != null) {
+            watcher.close();
+        }
+    }
 }
@@ -0,0 +1,133 @@
+package stickman;
+
+import stickman.model.GameEngine;
+import stickman.model.GameManager;
+import stickman.model.InputPlayer;
+import stickman.model.InputRecorder;
+import stickman.perf.TickProfiler;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Runs the game engine without JavaFX, as fast as possible, and reports how it went.
+ * Used to measure engine throughput on machines with no display.
+ *
+ * Options (all optional):
+ *   --levels=FILE       Level config file to play (default levels/levels.json)
+ *   --level=FILE        A single level file to play instead of a config file
+ *   --ticks=N           Number of ticks to run (default 10000)
+ *   --input=SCRIPT      Commands to send, e.g. "0:right,120:jump,300:shoot"
+ *   --input-file=FILE   File containing an input script
+ *   --replay=FILE       Input recording to play back (from InputRecorder)
+ *   --record=FILE       Record the commands sent during the run
+ *   --profile=true      Time each phase of the tick and print p50/p99/max
+ */
+public class HeadlessRunner {
+
+    /**
+     * The default number of ticks to run.
+     */
+    private static final long DEFAULT_TICKS = 10000;
+
+    /**
+     * Runs the engine and prints a report.
+     * @param args Command line arguments in --name=value form
+     */
+    public static void main(String[] args) throws IOException {
+        Map<String, String> params = parseArgs(args);
+
+        GameEngine model;
+        if (params.containsKey("level")) {
+            model = new GameManager(Collections.singletonList(params.get("level")));
+        } else {
+            model = new GameManager(params.getOrDefault("levels", "levels/levels.json"));
+        }
+
+        String script = params.getOrDefault("input", "");
+        if (params.containsKey("input-file")) {
+            script = new String(Files.readAllBytes(Paths.get(params.get("input-file"))));
+        }
+        InputPlayer input = InputPlayer.parse(script);
+        if (params.containsKey("replay")) {
+            input = InputPlayer.read(Paths.get(params.get("replay")));
+        }
+
+        InputRecorder recorder = null;
+        if (params.containsKey("record")) {
+            recorder = new InputRecorder(model, Paths.get(params.get("record")));
+            model = recorder;
+        }
+
+        if (Boolean.parseBoolean(params.get("profile"))) {
+            TickProfiler.setEnabled(true);
+        }
+
+        long ticks = Long.parseLong(params.getOrDefault("ticks", Long.toString(DEFAULT_TICKS)));
+
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        long allocatedBefore = allocatedBytes(threads);
+        long start = System.nanoTime();
+
+        for (long tick = 0; tick < ticks; tick++) {
+            input.applyUpTo(model, tick);
+            model.tick();
+        }
+
+        long elapsed = System.nanoTime() - start;
+        long allocated = allocatedBytes(threads) - allocatedBefore;
+
+        if (recorder != null) {
+            recorder.close();
+        }
+
+        System.out.println("Level:          " + model.getCurrentLevel().getSource());
+        System.out.println("Ticks:          " + ticks);
+        System.out.printf("Time:           %.1f ms%n", elapsed / 1e6);
+        System.out.printf("Ticks/sec:      %.0f%n", ticks / (elapsed / 1e9));
+        if (allocated >= 0) {
+            System.out.printf("Allocated/tick: %.1f bytes%n", (double) allocated / ticks);
+        }
+        System.out.println("Outcome:        " + model.getStatus());
+        System.out.println("Total score:    " + model.getTotalScore());
+        System.out.println("Level score:    " + model.getCurrentLevel().getScore());
+        System.out.println("Lives:          " + model.getCurrentLevel().getLives());
+
+        // With -Dstickman.profile=true the profiler prints its own report on exit
+        if (TickProfiler.isEnabled() && !Boolean.getBoolean(TickProfiler.PROPERTY)) {
+            System.out.println();
+            System.out.print(TickProfiler.report());
+        }
+    }
+
+    /**
+     * Returns the bytes allocated so far by this thread, or -1 if the JVM can't measure it.
+     */
+    private static long allocatedBytes(ThreadMXBean threads) {
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+    /**
+     * Parses arguments of the form --name=value.
+     */
+    static Map<String, String> parseArgs(String[] args) {
+        Map<String, String> params = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value but found '" + arg + "'");
+            }
+            int split = arg.indexOf('=');
+            params.put(arg.substring(2, split), arg.substring(split + 1));
+        }
+        return params;
+    }
+}
@@ -0,0 +1,41 @@
+package stickman;
+
+import org.json.simple.parser.ParseException;
+import stickman.level.BinaryLevelFile;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Map;
+
+/**
+ * Converts a JSON level file into the binary level format, which loads much faster
+ * for large levels. levels.json can list the converted file in place of the original.
+ *
+ * Options:
+ *   --in=FILE           JSON level file to read (required)
+ *   --out=FILE          Binary level file to write (default: the input with a .stkl extension)
+ */
+public class LevelConverterTool {
+
+    /**
+     * Converts the level file.
+     * @param args Command line arguments in --name=value form
+     */
+    public static void main(String[] args) throws IOException, ParseException {
+        Map<String, String> params = HeadlessRunner.parseArgs(args);
+
+        String in = params.get("in");
+        if (in == null) {
+            throw new IllegalArgumentException("Missing --in=FILE");
+        }
+
+        String out = params.getOrDefault("out", in.replaceFirst("\\.json$", "") + BinaryLevelFile.EXTENSION);
+        if (!BinaryLevelFile.isBinary(out)) {
+            throw new IllegalArgumentException("Binary level files must end in " + BinaryLevelFile.EXTENSION);
+        }
+
+        BinaryLevelFile.convert(in, Paths.get(out));
+
+        System.out.println("Wrote " + out);
+    }
+}
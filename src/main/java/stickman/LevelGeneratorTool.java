@@ -0,0 +1,60 @@
+package stickman;
+
+import stickman.level.LevelGenerator;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Map;
+
+/**
+ * Writes a randomly generated level file, for load testing and benchmarks.
+ * The same options always give the same file.
+ *
+ * Options:
+ *   --out=FILE          File to write (required)
+ *   --seed=N            Seed for the random placement (default 0)
+ *   --entities=N        Total entity count, split 80% platforms, 15% slimes and 5% mushrooms
+ *   --platforms=N       Number of platforms (overrides --entities)
+ *   --mushrooms=N       Number of mushrooms (overrides --entities)
+ *   --dumb=N            Number of side to side slimes (overrides --entities)
+ *   --follow=N          Number of following slimes (overrides --entities)
+ *   --width=N           Level width (default grows with the entity count)
+ *   --height=N          Level height (default 600)
+ *   --floor=N           Floor height (default 400)
+ */
+public class LevelGeneratorTool {
+
+    /**
+     * Generates the level file.
+     * @param args Command line arguments in --name=value form
+     */
+    public static void main(String[] args) throws IOException {
+        Map<String, String> params = HeadlessRunner.parseArgs(args);
+
+        if (!params.containsKey("out")) {
+            throw new IllegalArgumentException("Missing --out=FILE");
+        }
+
+        int entities = Integer.parseInt(params.getOrDefault("entities", "0"));
+        int slimes = entities * 15 / 100;
+
+        LevelGenerator generator = new LevelGenerator(Long.parseLong(params.getOrDefault("seed", "0")))
+                .setPlatforms(count(params, "platforms", entities * 80 / 100))
+                .setMushrooms(count(params, "mushrooms", entities * 5 / 100))
+                .setSlimes(count(params, "dumb", slimes / 2), count(params, "follow", slimes - slimes / 2))
+                .setDimensions(Double.parseDouble(params.getOrDefault("width", "0")),
+                        Double.parseDouble(params.getOrDefault("height", "600")),
+                        Double.parseDouble(params.getOrDefault("floor", "400")));
+
+        generator.write(Paths.get(params.get("out")));
+
+        System.out.println("Wrote " + params.get("out") + " (width " + generator.getWidth() + ")");
+    }
+
+    /**
+     * Reads an entity count option, falling back to a default.
+     */
+    private static int count(Map<String, String> params, String name, int fallback) {
+        return params.containsKey(name) ? Integer.parseInt(params.get(name)) : fallback;
+    }
+}
@@ -1,8 +1,7 @@
 package stickman.entity.moving;
 
 import stickman.entity.Entity;
-
-import java.util.List;
+import stickman.level.SolidIndex;
 
 /**
  * Interface describing the behaviours of a Moving Entity. A Moving Entity
@@ -12,22 +11,32 @@ public interface MovingEntity extends Entity {
 
     /**
      * Updates the Entity every frame.
+     * @param solids The solid entities in the level
+     * @param heroX The x-coordinate of the hero
+     * @param floorHeight The height of the floor
      */
-    void tick(List<Entity> entities, double heroX, double floorHeight);
+    void tick(SolidIndex solids, double heroX, double floorHeight);
 
     /**
      * Causes the Entity to no longer be active.
      */
     void die();
 
+    /**
+     * Called when the Entity wakes after sleeping outside the level's activation region.
+     * Resets any state that went stale while it wasn't being updated.
+     */
+    default void wake() {
+    }
+
     /**
      * Returns the distance (in pixels) to the nearest entity with same y-coordinates.
      * @param left Whether to check to the left
-     * @param entities The other entities in the level
+     * @param solids The solid entities in the level
      * @param bound The furthest the entity can move in the direction
      * @return The distance to the nearest entity with same y-coordinate
      */
-    default double horizontalRaycast(boolean left, List<Entity> entities, double bound) {
+    default double horizontalRaycast(boolean left, SolidIndex solids, double bound) {
 
         double res = bound - (getXPos() + getWidth());
 
@@ -35,33 +44,17 @@ public interface MovingEntity extends Entity {
             res = getXPos();
         }
 
-        for (Entity entity : entities) {
-            if (entity.isSolid() && entity != this) {
-                if (getYPos() < entity.getYPos() + entity.getHeight() && getYPos() + getHeight() > entity.getYPos()) {
-                    double horizontalDistance = entity.getXPos() - (getXPos() + getWidth());
-
-                    if (left) {
-                        horizontalDistance = getXPos() - (entity.getXPos() + entity.getWidth());
-                    }
-
-                    if (horizontalDistance >= 0) {
-                        res = Math.min(res, horizontalDistance);
-                    }
-                }
-            }
-        }
-
-        return res;
+        return solids.nearestHorizontal(this, left, res);
     }
 
     /**
      * Returns the distance (in pixels) to the nearest entity with same y-coordinates.
      * @param up Whether to check upwards
-     * @param entities The other entities in the level
+     * @param solids The solid entities in the level
      * @param bound The furthest the entity can move in the direction
      * @return The distance to the nearest entity with same y-coordinate
      */
-    default double verticalRaycast(boolean up, List<Entity> entities, double bound) {
+    default double verticalRaycast(boolean up, SolidIndex solids, double bound) {
 
         double res = bound - (getYPos() + getHeight());
 
@@ -69,22 +62,6 @@ public interface MovingEntity extends Entity {
             res = getYPos();
         }
 
-        for (Entity entity : entities) {
-            if (entity.isSolid() && entity != this) {
-                if (getXPos() < entity.getXPos() + entity.getWidth() && getXPos() + getWidth() > entity.getXPos()) {
-                    double verticalDistance = entity.getYPos() - (getYPos() + getHeight());
-
-                    if (up) {
-                        verticalDistance = getYPos() - (entity.getYPos() + entity.getHeight());
-                    }
-
-                    if (verticalDistance >= 0) {
-                        res = Math.min(res, verticalDistance);
-                    }
-                }
-            }
-        }
-
-        return res;
+        return solids.nearestVertical(this, up, res);
     }
 }
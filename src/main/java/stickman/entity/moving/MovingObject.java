@@ -2,8 +2,7 @@ package stickman.entity.moving;
 
 import stickman.entity.Entity;
 import stickman.entity.GameObject;
-
-import java.util.List;
+import stickman.level.SolidIndex;
 
 /**
  * Abstract implementation of MovingEntity. Extends from GameObject to reduce repetitive code.
@@ -33,28 +32,63 @@ public abstract class MovingObject extends GameObject implements MovingEntity {
         super(imagePath, x, y, height, width, layer);
     }
 
+    /**
+     * Gets the x-velocity of the entity.
+     * @return The x-velocity
+     */
+    public double getXVelocity() {
+        return this.xVelocity;
+    }
+
+    /**
+     * Gets the y-velocity of the entity.
+     * @return The y-velocity
+     */
+    public double getYVelocity() {
+        return this.yVelocity;
+    }
+
+    /**
+     * Sets the velocity of the entity, such as when restoring it from a save.
+     * @param xVelocity The x-velocity
+     * @param yVelocity The y-velocity
+     */
+    public void setVelocity(double xVelocity, double yVelocity) {
+        this.xVelocity = xVelocity;
+        this.yVelocity = yVelocity;
+    }
+
     @Override
     public void die() {
         this.active = false;
     }
 
     /**
-     * Updates the y-velocity to account for gravity. The list is required to ensure the
+     * Wakes from rest: the entity starts moving again from zero velocity wherever it fell asleep.
+     */
+    @Override
+    public void wake() {
+        this.xVelocity = 0;
+        this.yVelocity = 0;
+    }
+
+    /**
+     * Updates the y-velocity to account for gravity. The solids are required to ensure the
      * entity doesn't fall through objects, and the floor height is required to ensure
      * the entity doesn't go below the floor.
-     * @param entities Other entities in the level.
+     * @param solids The solid entities in the level.
      * @param floorHeight The height of the floor.
      */
-    protected void gravity(List<Entity> entities, double floorHeight) {
+    protected void gravity(SolidIndex solids, double floorHeight) {
         this.yVelocity += 0.1;
         this.yVelocity = Math.min(this.yVelocity, floorHeight - this.yPos - this.height);
 
         boolean up = this.yVelocity < 0;
 
         if (up) {
-            this.yVelocity = Math.max(this.yVelocity, -verticalRaycast(true, entities, 0));
+            this.yVelocity = Math.max(this.yVelocity, -verticalRaycast(true, solids, 0));
         } else {
-            this.yVelocity = Math.min(this.yVelocity, verticalRaycast(false, entities, floorHeight));
+            this.yVelocity = Math.min(this.yVelocity, verticalRaycast(false, solids, floorHeight));
         }
     }
 }
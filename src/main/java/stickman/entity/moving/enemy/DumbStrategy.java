@@ -1,9 +1,7 @@
 package stickman.entity.moving.enemy;
 
-import stickman.entity.Entity;
 import stickman.entity.moving.MovingEntity;
-
-import java.util.List;
+import stickman.level.SolidIndex;
 
 /**
  * Strategy for slimes that move side to side.
@@ -16,14 +14,14 @@ public class DumbStrategy implements EnemyStrategy {
     private static final double DUMB_SPEED = 0.5;
 
     @Override
-    public double think(MovingEntity enemy, List<Entity> entities, boolean left, double heroX) {
+    public double think(MovingEntity enemy, SolidIndex solids, boolean left, double heroX) {
 
         double xVelocity = 0;
 
         if (left) {
-            xVelocity = Math.max(-DUMB_SPEED, -enemy.horizontalRaycast(true, entities, 0));
+            xVelocity = Math.max(-DUMB_SPEED, -enemy.horizontalRaycast(true, solids, 0));
         } else {
-            xVelocity = Math.min(DUMB_SPEED, enemy.horizontalRaycast(false, entities, Double.MAX_VALUE));
+            xVelocity = Math.min(DUMB_SPEED, enemy.horizontalRaycast(false, solids, Double.MAX_VALUE));
         }
 
         return xVelocity;
@@ -1,9 +1,7 @@
 package stickman.entity.moving.enemy;
 
-import stickman.entity.Entity;
 import stickman.entity.moving.MovingEntity;
-
-import java.util.List;
+import stickman.level.SolidIndex;
 
 /**
  * Interface for the Strategy that Slimes use to determine where to move.
@@ -13,10 +11,10 @@ public interface EnemyStrategy {
     /**
      * Determines the x-velocity of the slime.
      * @param enemy The slime to move
-     * @param entities The other entities in the level
+     * @param solids The solid entities in the level
      * @param left Whether the slime was moving left
      * @param heroX The x-coordinate of the hero
      * @return The new x-velocity the slime should use
      */
-    double think(MovingEntity enemy, List<Entity> entities, boolean left, double heroX);
+    double think(MovingEntity enemy, SolidIndex solids, boolean left, double heroX);
 }
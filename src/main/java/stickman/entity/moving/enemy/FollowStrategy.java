@@ -1,9 +1,7 @@
 package stickman.entity.moving.enemy;
 
-import stickman.entity.Entity;
 import stickman.entity.moving.MovingEntity;
-
-import java.util.List;
+import stickman.level.SolidIndex;
 
 /**
  * Strategy for slimes that follow the player.
@@ -16,7 +14,7 @@ public class FollowStrategy implements EnemyStrategy {
     private static final double FOLLOW_SPEED = 0.5;
 
     @Override
-    public double think(MovingEntity enemy, List<Entity> entities, boolean left, double heroX) {
+    public double think(MovingEntity enemy, SolidIndex solids, boolean left, double heroX) {
 
         double xVelocity = 0;
 
@@ -27,9 +25,9 @@ public class FollowStrategy implements EnemyStrategy {
         }
 
         if (left) {
-            xVelocity = Math.max(-FOLLOW_SPEED, -enemy.horizontalRaycast(true, entities, 0));
+            xVelocity = Math.max(-FOLLOW_SPEED, -enemy.horizontalRaycast(true, solids, 0));
         } else {
-            xVelocity = Math.min(FOLLOW_SPEED, enemy.horizontalRaycast(false, entities, Double.MAX_VALUE));
+            xVelocity = Math.min(FOLLOW_SPEED, enemy.horizontalRaycast(false, solids, Double.MAX_VALUE));
         }
 
         return xVelocity;
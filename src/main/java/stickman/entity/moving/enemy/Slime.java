@@ -4,8 +4,7 @@ import stickman.entity.Entity;
 import stickman.entity.Interactable;
 import stickman.entity.moving.MovingObject;
 import stickman.entity.moving.player.Controllable;
-
-import java.util.List;
+import stickman.level.SolidIndex;
 
 /**
  * Standard enemy type that kills the player on impact. Bases its movement
@@ -43,12 +42,12 @@ public class Slime extends MovingObject implements Interactable {
     }
 
     @Override
-    public void tick(List<Entity> entities, double heroX, double floorHeight) {
+    public void tick(SolidIndex solids, double heroX, double floorHeight) {
 
-        this.gravity(entities, floorHeight);
+        this.gravity(solids, floorHeight);
         this.yPos += this.yVelocity;
 
-        this.xVelocity = this.strategy.think(this, entities, this.left, heroX);
+        this.xVelocity = this.strategy.think(this, solids, this.left, heroX);
         this.xPos += this.xVelocity;
 
         if (Math.abs(this.xVelocity) < 0.05) {
@@ -56,6 +55,22 @@ public class Slime extends MovingObject implements Interactable {
         }
     }
 
+    /**
+     * Checks whether the slime is heading left.
+     * @return True if the slime is heading left
+     */
+    public boolean isMovingLeft() {
+        return this.left;
+    }
+
+    /**
+     * Gets the strategy the slime moves by.
+     * @return The strategy
+     */
+    public EnemyStrategy getStrategy() {
+        return this.strategy;
+    }
+
     @Override
     public boolean isSolid() {
         return false;
@@ -2,8 +2,7 @@ package stickman.entity.moving.other;
 
 import stickman.entity.Entity;
 import stickman.entity.moving.MovingObject;
-
-import java.util.List;
+import stickman.level.SolidIndex;
 
 /**
  * Bullet object that the player can shoot to kill slimes.
@@ -42,11 +41,18 @@ public class Bullet extends MovingObject implements Projectile {
     }
 
     @Override
-    public void tick(List<Entity> entities, double heroX, double floorHeight) {
+    public void tick(SolidIndex solids, double heroX, double floorHeight) {
         this.xPos += this.xVelocity;
         this.yPos += this.yVelocity;
     }
 
+    /**
+     * Bullets fly at a constant speed, so a bullet that slept carries on as it was.
+     */
+    @Override
+    public void wake() {
+    }
+
     @Override
     public boolean isSolid() {
         return false;
@@ -1,7 +1,7 @@
 package stickman.entity.moving.other;
 
-import stickman.entity.Entity;
 import stickman.entity.moving.MovingEntity;
+import stickman.level.SolidIndex;
 
 import java.util.List;
 
@@ -21,7 +21,8 @@ public interface Projectile extends MovingEntity {
      * @param movingEntities List of moving entities in the level
      */
     default void movingCollision(List<MovingEntity> movingEntities) {
-        for (MovingEntity movingEntity : movingEntities) {
+        for (int i = 0; i < movingEntities.size(); i++) {
+            MovingEntity movingEntity = movingEntities.get(i);
             if (movingEntity != this) {
                 if (this.checkCollide(movingEntity) && movingEntity.isActive()) {
                     movingEntity.die();
@@ -33,18 +34,13 @@ public interface Projectile extends MovingEntity {
     }
 
     /**
-     * Checks for collisions with static entities. If there is a collision, the
+     * Checks for collisions with solid entities. If there is a collision, the
      * projectile becomes inactive.
-     * @param entities The static entities in the level
+     * @param solids The solid entities in the level
      */
-    default void staticCollision(List<Entity> entities) {
-        for (Entity entity : entities) {
-            if (entity != this) {
-                if (this.checkCollide(entity) && entity.isSolid()) {
-                    this.stop();
-                    return;
-                }
-            }
+    default void staticCollision(SolidIndex solids) {
+        if (solids.collides(this)) {
+            this.stop();
         }
     }
 }
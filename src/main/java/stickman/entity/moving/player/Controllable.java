@@ -55,6 +55,8 @@ public interface Controllable extends MovingEntity {
 
     void setUpgrade(boolean up);
 
+    void setX(double x);
+
     void setY(double y);
 
     void setLeft(boolean left);
@@ -3,8 +3,7 @@ package stickman.entity.moving.player;
 import stickman.entity.Entity;
 import stickman.entity.moving.MovingObject;
 import stickman.level.Level;
-
-import java.util.List;
+import stickman.level.SolidIndex;
 
 /**
  * The player controlled character.
@@ -102,25 +101,25 @@ public class StickMan extends MovingObject implements Controllable {
     }
 
     @Override
-    public void tick(List<Entity> entities, double heroX, double floorHeight) {
+    public void tick(SolidIndex solids, double heroX, double floorHeight) {
 
-        this.gravity(entities, floorHeight);
+        this.gravity(solids, floorHeight);
         this.yPos += this.yVelocity;
 
-        this.horizontalMove(entities);
+        this.horizontalMove(solids);
         this.xPos += this.xVelocity;
 
     }
 
     /**
      * Updates x-velocity based on the proximity of other entities.
-     * @param entities The other entities in the scene
+     * @param solids The solid entities in the scene
      */
-    private void horizontalMove(List<Entity> entities) {
+    private void horizontalMove(SolidIndex solids) {
         if (left) {
-            this.xVelocity = Math.max(-HORIZONTAL_SPEED, -horizontalRaycast(true, entities, 0));
+            this.xVelocity = Math.max(-HORIZONTAL_SPEED, -horizontalRaycast(true, solids, 0));
         } else if (right) {
-            this.xVelocity = Math.min(HORIZONTAL_SPEED, horizontalRaycast(false, entities, level.getWidth()));
+            this.xVelocity = Math.min(HORIZONTAL_SPEED, horizontalRaycast(false, solids, level.getWidth()));
         } else {
             this.xVelocity = 0;
         }
@@ -131,7 +130,7 @@ public class StickMan extends MovingObject implements Controllable {
         this.left = true;
         this.right = false;
         faceLeft();
-        return horizontalRaycast(true, this.level.getEntities(), 0) > 0;
+        return horizontalRaycast(true, this.level.getSolids(), 0) > 0;
     }
 
     @Override
@@ -139,7 +138,7 @@ public class StickMan extends MovingObject implements Controllable {
         this.right = true;
         this.left = false;
         faceRight();
-        return horizontalRaycast(false, this.level.getEntities(), 0) > 0;
+        return horizontalRaycast(false, this.level.getSolids(), 0) > 0;
     }
 
     @Override
@@ -157,7 +156,7 @@ public class StickMan extends MovingObject implements Controllable {
      * @return Whether the player can jump
      */
     private boolean canJump() {
-        return verticalRaycast(false, this.level.getEntities(), this.level.getFloorHeight()) < 0.05;
+        return verticalRaycast(false, this.level.getSolids(), this.level.getFloorHeight()) < 0.05;
     }
 
     @Override
@@ -233,6 +232,11 @@ public class StickMan extends MovingObject implements Controllable {
         this.upgraded = up;
     }
 
+    @Override
+    public void setX(double x) {
+        this.xPos = x;
+    }
+
     @Override
     public void setY(double y) {
         this.yPos = y;
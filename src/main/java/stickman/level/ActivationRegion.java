@@ -0,0 +1,189 @@
+package stickman.level;
+
+import stickman.entity.Entity;
+import stickman.entity.Interactable;
+import stickman.entity.moving.MovingEntity;
+
+import java.util.Arrays;
+
+/**
+ * Keeps only the entities near the hero awake. Moving and interactable entities
+ * further than WAKE_DISTANCE + SLEEP_MARGIN from the hero are put to sleep in the
+ * EntityStore, so they aren't updated or collided with, and are filed into buckets
+ * by x-coordinate. Each update wakes the sleepers in the buckets within WAKE_DISTANCE
+ * of the hero. The margin stops entities near the edge from sleeping and waking
+ * every tick. A projectile sleeps like everything else, so a bullet fired across a
+ * long gap waits with the enemies out there and flies on when they wake.
+ */
+class ActivationRegion {
+
+    /**
+     * How close (horizontally) to the hero a sleeping entity must be to wake up.
+     * Comfortably wider than the screen either side of the hero.
+     */
+    static final double WAKE_DISTANCE = 1000;
+
+    /**
+     * How much further than WAKE_DISTANCE an entity must be to fall asleep.
+     */
+    static final double SLEEP_MARGIN = 200;
+
+    /**
+     * The width of each bucket of sleeping entities.
+     */
+    private static final double BUCKET_WIDTH = 256;
+
+    /**
+     * The store holding the entities.
+     */
+    private final EntityStore store;
+
+    /**
+     * The handles of the sleeping entities, by bucket index minus firstBucket.
+     * Null where no entity has slept yet.
+     */
+    private Bucket[] buckets = new Bucket[0];
+
+    /**
+     * The bucket index of buckets[0].
+     */
+    private int firstBucket;
+
+    /**
+     * The number of sleeping entities.
+     */
+    private int sleeping;
+
+    /**
+     * Creates a new ActivationRegion object.
+     * @param store The store holding the entities
+     */
+    ActivationRegion(EntityStore store) {
+        this.store = store;
+    }
+
+    /**
+     * Gets the number of sleeping entities.
+     * @return The number of sleeping entities
+     */
+    int sleeping() {
+        return this.sleeping;
+    }
+
+    /**
+     * Puts entities that have left the region to sleep, and wakes sleeping
+     * entities that are back inside it.
+     * @param hero The entity the region is centred on, which never sleeps
+     */
+    void update(Entity hero) {
+        double heroX = hero.getXPos();
+
+        // Walk backwards, as removal moves the last entity into the freed position
+        EntityStore.View<MovingEntity> moving = store.moving();
+        for (int i = moving.size() - 1; i >= 0; i--) {
+            MovingEntity entity = moving.get(i);
+            if (entity != hero && Math.abs(entity.getXPos() - heroX) > WAKE_DISTANCE + SLEEP_MARGIN) {
+                sleep(moving.handle(i), entity);
+            }
+        }
+
+        EntityStore.View<Interactable> interactables = store.interactables();
+        for (int i = interactables.size() - 1; i >= 0; i--) {
+            Interactable entity = interactables.get(i);
+            if (entity != hero && Math.abs(entity.getXPos() - heroX) > WAKE_DISTANCE + SLEEP_MARGIN) {
+                sleep(interactables.handle(i), entity);
+            }
+        }
+
+        if (sleeping == 0) {
+            return;
+        }
+
+        int from = bucket(heroX - WAKE_DISTANCE);
+        int to = bucket(heroX + WAKE_DISTANCE);
+        for (int b = from; b <= to; b++) {
+            int index = b - firstBucket;
+            Bucket bucket = index >= 0 && index < buckets.length ? buckets[index] : null;
+            if (bucket == null) {
+                continue;
+            }
+            for (int i = bucket.size - 1; i >= 0; i--) {
+                long handle = bucket.handles[i];
+                Entity entity = store.get(handle);
+                if (entity == null) {
+                    // Removed from the level while asleep
+                    bucket.remove(i);
+                    sleeping--;
+                } else if (Math.abs(entity.getXPos() - heroX) <= WAKE_DISTANCE) {
+                    bucket.remove(i);
+                    sleeping--;
+                    store.wake(handle);
+                    if (entity instanceof MovingEntity) {
+                        ((MovingEntity) entity).wake();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Puts an entity to sleep and files it by x-coordinate.
+     */
+    private void sleep(long handle, Entity entity) {
+        if (!store.sleep(handle)) {
+            return;
+        }
+        bucketAt(bucket(entity.getXPos())).add(handle);
+        sleeping++;
+    }
+
+    /**
+     * Gets the bucket with the given index, creating it (and growing the array) if needed.
+     */
+    private Bucket bucketAt(int b) {
+        if (buckets.length == 0) {
+            firstBucket = b;
+            buckets = new Bucket[1];
+        } else if (b < firstBucket) {
+            int shift = Math.max(firstBucket - b, buckets.length);
+            Bucket[] grown = new Bucket[buckets.length + shift];
+            System.arraycopy(buckets, 0, grown, shift, buckets.length);
+            buckets = grown;
+            firstBucket -= shift;
+        } else if (b - firstBucket >= buckets.length) {
+            buckets = Arrays.copyOf(buckets, Math.max(b - firstBucket + 1, buckets.length * 2));
+        }
+
+        int index = b - firstBucket;
+        if (buckets[index] == null) {
+            buckets[index] = new Bucket();
+        }
+        return buckets[index];
+    }
+
+    /**
+     * Converts an x-coordinate into the index of the bucket containing it.
+     */
+    private static int bucket(double x) {
+        return (int) Math.floor(x / BUCKET_WIDTH);
+    }
+
+    /**
+     * A growable array of handles.
+     */
+    private static class Bucket {
+        private long[] handles = new long[8];
+        private int size;
+
+        void add(long handle) {
+            if (size == handles.length) {
+                handles = Arrays.copyOf(handles, size * 2);
+            }
+            handles[size++] = handle;
+        }
+
+        void remove(int index) {
+            handles[index] = handles[--size];
+        }
+    }
+}
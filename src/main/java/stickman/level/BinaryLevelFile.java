@@ -0,0 +1,342 @@
+package stickman.level;
+
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.json.simple.parser.ParseException;
+import stickman.entity.moving.enemy.DumbStrategy;
+import stickman.entity.moving.enemy.EnemyStrategy;
+import stickman.entity.moving.enemy.FollowStrategy;
+import stickman.entity.moving.enemy.Slime;
+import stickman.entity.still.Flag;
+import stickman.entity.still.Mushroom;
+import stickman.entity.still.Platform;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads and writes the compact binary level format, which holds the same level as
+ * the JSON schema as a header followed by packed arrays of primitives. Loading maps
+ * the file into memory and creates the entities straight from the buffer, with none
+ * of the boxed numbers and maps a JSON parse makes.
+ *
+ * The layout, all big-endian, with every array starting on an 8 byte boundary:
+ * <pre>
+ *   int magic, int version
+ *   double heroX, string heroSize, long lives
+ *   double width, double height, double floorHeight, long time
+ *   double flagX, double flagY
+ *   int stringCount, string[stringCount]
+ *   int platformCount, double[platformCount] x, double[platformCount] y
+ *   int mushroomCount, double[mushroomCount] x, double[mushroomCount] y
+ *   int enemyCount, double[enemyCount] x, double[enemyCount] y,
+ *       short[enemyCount] path, short[enemyCount] strategy, byte[enemyCount] startLeft
+ * </pre>
+ * Strings are an unsigned short length followed by UTF-8 bytes. Enemy paths and
+ * strategies are indexes into the string table.
+ */
+public final class BinaryLevelFile {
+
+    /**
+     * The extension of binary level files.
+     */
+    public static final String EXTENSION = ".stkl";
+
+    /**
+     * The first four bytes of every binary level file ("STKL").
+     */
+    private static final int MAGIC = 0x53544b4c;
+
+    /**
+     * The version of the layout written by this class.
+     */
+    private static final int VERSION = 1;
+
+    /**
+     * Binary level files are read and written through static methods only.
+     */
+    private BinaryLevelFile() {
+    }
+
+    /**
+     * Checks whether a level file is in the binary format, by its extension.
+     * @param file The level file
+     * @return True if the file should be read as a binary level
+     */
+    public static boolean isBinary(String file) {
+        return file.endsWith(EXTENSION);
+    }
+
+    /**
+     * Maps a binary level file and adds its contents to a LevelBuilder, in the same
+     * order as a JSON level is read.
+     * @param file The binary level file to read
+     * @param levelBuilder The builder to add the level to
+     * @throws IOException If the file can't be read, or isn't a valid binary level
+     */
+    static void read(String file, LevelBuilder levelBuilder) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(Paths.get(file), StandardOpenOption.READ)) {
+            // The mapping stays valid after the channel is closed
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        try {
+            read(buffer, levelBuilder);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new IOException("Truncated or corrupt level file " + file, e);
+        }
+    }
+
+    /**
+     * Adds the level held in a buffer to a LevelBuilder.
+     */
+    private static void read(ByteBuffer buffer, LevelBuilder levelBuilder) throws IOException {
+        if (buffer.getInt() != MAGIC) {
+            throw new IOException("Not a binary level file");
+        }
+        int version = buffer.getInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported binary level version " + version);
+        }
+
+        double heroX = buffer.getDouble();
+        String heroSize = readString(buffer);
+        levelBuilder.setHero(heroX, heroSize);
+        levelBuilder.setLives(buffer.getLong());
+
+        double width = buffer.getDouble();
+        double height = buffer.getDouble();
+        levelBuilder.setDimensions(width, height);
+        levelBuilder.setFloorHeight(buffer.getDouble());
+        levelBuilder.setTime(buffer.getLong());
+
+        double flagX = buffer.getDouble();
+        double flagY = buffer.getDouble();
+
+        // Every string takes at least its two byte length
+        String[] strings = new String[readCount(buffer, Short.BYTES)];
+        for (int i = 0; i < strings.length; i++) {
+            strings[i] = readString(buffer);
+        }
+
+        // Get platforms
+        int count = readCount(buffer, 16);
+        int xs = align(buffer);
+        int ys = xs + count * Double.BYTES;
+        for (int i = 0; i < count; i++) {
+            levelBuilder.addStaticEntity(new Platform(buffer.getDouble(xs + i * Double.BYTES),
+                    buffer.getDouble(ys + i * Double.BYTES)));
+        }
+        buffer.position(ys + count * Double.BYTES);
+
+        // Get mushrooms
+        count = readCount(buffer, 16);
+        xs = align(buffer);
+        ys = xs + count * Double.BYTES;
+        for (int i = 0; i < count; i++) {
+            Mushroom shroom = new Mushroom(buffer.getDouble(xs + i * Double.BYTES), buffer.getDouble(ys + i * Double.BYTES));
+
+            levelBuilder.addInteractable(shroom);
+            levelBuilder.addStaticEntity(shroom);
+        }
+        buffer.position(ys + count * Double.BYTES);
+
+        // Enemy Strategies
+        EnemyStrategy[] strategies = new EnemyStrategy[strings.length];
+        EnemyStrategy dumb = new DumbStrategy();
+        EnemyStrategy follow = new FollowStrategy();
+        for (int i = 0; i < strings.length; i++) {
+            if ("dumb".equals(strings[i])) {
+                strategies[i] = dumb;
+            } else if ("follow".equals(strings[i])) {
+                strategies[i] = follow;
+            }
+        }
+
+        // Get enemies
+        count = readCount(buffer, 21);
+        xs = align(buffer);
+        ys = xs + count * Double.BYTES;
+        int paths = ys + count * Double.BYTES;
+        int strats = paths + count * Short.BYTES;
+        int lefts = strats + count * Short.BYTES;
+        for (int i = 0; i < count; i++) {
+            String image = strings[buffer.getShort(paths + i * Short.BYTES) & 0xffff];
+            EnemyStrategy strat = strategies[buffer.getShort(strats + i * Short.BYTES) & 0xffff];
+            boolean startLeft = buffer.get(lefts + i) != 0;
+
+            Slime enemy = new Slime(image, buffer.getDouble(xs + i * Double.BYTES),
+                    buffer.getDouble(ys + i * Double.BYTES), startLeft, strat);
+
+            levelBuilder.addInteractable(enemy);
+            levelBuilder.addEnemy(enemy);
+        }
+
+        Flag flag = new Flag(flagX, flagY);
+
+        levelBuilder.addInteractable(flag);
+        levelBuilder.addStaticEntity(flag);
+    }
+
+    /**
+     * Reads an array length, checking the buffer holds that many elements.
+     * @param bytesEach The number of bytes each element takes up
+     */
+    private static int readCount(ByteBuffer buffer, int bytesEach) throws IOException {
+        int count = buffer.getInt();
+        if (count < 0 || (long) count * bytesEach > buffer.remaining()) {
+            throw new IOException("Invalid array length " + count);
+        }
+        return count;
+    }
+
+    /**
+     * Skips the padding before an array.
+     * @return The position of the array
+     */
+    private static int align(ByteBuffer buffer) {
+        buffer.position((buffer.position() + 7) & ~7);
+        return buffer.position();
+    }
+
+    /**
+     * Reads a length prefixed UTF-8 string.
+     */
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getShort() & 0xffff];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Converts a JSON level file into a binary level file.
+     * @param jsonFile The JSON level file to read
+     * @param out The binary level file to write
+     * @throws IOException If either file can't be read or written
+     * @throws ParseException If the JSON level isn't valid JSON
+     */
+    @SuppressWarnings("unchecked")
+    public static void convert(String jsonFile, Path out) throws IOException, ParseException {
+        JSONObject object;
+        try (Reader reader = new FileReader(jsonFile)) {
+            object = (JSONObject) new JSONParser().parse(reader);
+        }
+
+        JSONObject pos = (JSONObject) object.get("stickmanPos");
+        JSONObject levelDimensions = (JSONObject) object.get("levelDimensions");
+        JSONObject flag = (JSONObject) object.get("flag");
+        List<JSONObject> platforms = (List<JSONObject>) (JSONArray) object.get("platforms");
+        List<JSONObject> mushrooms = (List<JSONObject>) (JSONArray) object.get("mushrooms");
+        List<JSONObject> enemies = (List<JSONObject>) (JSONArray) object.get("enemies");
+
+        // Every distinct enemy path and strategy, in order of first use
+        Map<String, Integer> strings = new LinkedHashMap<>();
+        for (JSONObject enemy : enemies) {
+            strings.putIfAbsent((String) enemy.get("path"), strings.size());
+            strings.putIfAbsent((String) enemy.get("strategy"), strings.size());
+        }
+
+        if (strings.size() > 0xffff) {
+            throw new IOException("Too many distinct enemy paths and strategies for a binary level");
+        }
+
+        try (Output output = new Output(out)) {
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+
+            output.writeDouble(number(pos, "x"));
+            output.writeString((String) object.get("stickmanSize"));
+            output.writeLong(((Number) object.get("lives")).longValue());
+
+            output.writeDouble(number(levelDimensions, "width"));
+            output.writeDouble(number(levelDimensions, "height"));
+            output.writeDouble(number(levelDimensions, "floorHeight"));
+            output.writeLong(((Number) levelDimensions.get("time")).longValue());
+
+            output.writeDouble(number(flag, "x"));
+            output.writeDouble(number(flag, "y"));
+
+            output.writeInt(strings.size());
+            for (String string : strings.keySet()) {
+                output.writeString(string);
+            }
+
+            writePositions(output, platforms);
+            writePositions(output, mushrooms);
+
+            writePositions(output, enemies);
+            for (JSONObject enemy : enemies) {
+                output.writeShort(strings.get((String) enemy.get("path")));
+            }
+            for (JSONObject enemy : enemies) {
+                output.writeShort(strings.get((String) enemy.get("strategy")));
+            }
+            for (JSONObject enemy : enemies) {
+                output.writeByte((boolean) enemy.get("startLeft") ? 1 : 0);
+            }
+        }
+    }
+
+    /**
+     * Writes an array length, then the x-coordinates and y-coordinates of the given objects.
+     */
+    private static void writePositions(Output output, List<JSONObject> objects) throws IOException {
+        output.writeInt(objects.size());
+        output.align();
+        for (JSONObject object : objects) {
+            output.writeDouble(number(object, "x"));
+        }
+        for (JSONObject object : objects) {
+            output.writeDouble(number(object, "y"));
+        }
+    }
+
+    /**
+     * Gets a number from a JSON object as a double.
+     */
+    private static double number(JSONObject object, String key) {
+        return ((Number) object.get(key)).doubleValue();
+    }
+
+    /**
+     * A buffered, big-endian output that can pad to the next array boundary.
+     */
+    private static class Output extends DataOutputStream {
+
+        Output(Path file) throws IOException {
+            super(new BufferedOutputStream(Files.newOutputStream(file), 1 << 16));
+        }
+
+        void writeString(String string) throws IOException {
+            byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+            if (bytes.length > 0xffff) {
+                throw new IOException("String too long for a binary level: " + string);
+            }
+            writeShort(bytes.length);
+            write(bytes);
+        }
+
+        void align() throws IOException {
+            while ((size() & 7) != 0) {
+                writeByte(0);
+            }
+        }
+    }
+}
@@ -0,0 +1,600 @@
+package stickman.level;
+
+import stickman.entity.Entity;
+import stickman.entity.moving.enemy.EnemyStrategy;
+import stickman.entity.moving.enemy.Slime;
+import stickman.entity.still.Flag;
+import stickman.entity.still.Mushroom;
+import stickman.entity.still.Platform;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.ref.Cleaner;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A temporary file holding the entities of unloaded chunks, and of the chunks a
+ * level template keeps out of memory (which a level that is still being read writes
+ * in batches, gathered into a record per chunk once it is read). A record is never
+ * changed once written, so a level and its copies (for quicksaves) can share it;
+ * each holder releases it when it loads the chunk, and its space in the file is
+ * then reused. Records of levels that are thrown away are released once they are
+ * garbage collected. Sprite paths and enemy strategies are written as indexes
+ * into tables kept here. The file is deleted once no level holds any of its records.
+ *
+ * Encoding, decoding and all file access run on one background thread, so the
+ * game never waits on the disk and none of this needs locking. If the file can't
+ * be written, records are kept in memory instead.
+ */
+final class ChunkSpill {
+
+    private static final Cleaner CLEANER = Cleaner.create();
+
+    /**
+     * Runs every spill's work, in the order it was submitted.
+     */
+    private static final ExecutorService IO = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "chunk-spill");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static final byte PLATFORM = 0;
+    private static final byte MUSHROOM = 1;
+    private static final byte FLAG = 2;
+    private static final byte SLIME = 3;
+
+    /**
+     * The file and its free space, kept apart so the cleaners can reach them without the spill.
+     */
+    private final Space space = new Space();
+
+    private final List<String> images = new ArrayList<>();
+    private final Map<String, Integer> imageIndexes = new HashMap<>();
+    private final List<EnemyStrategy> strategies = new ArrayList<>();
+    private final Map<EnemyStrategy, Integer> strategyIndexes = new IdentityHashMap<>();
+
+    /**
+     * Creates a new ChunkSpill object. Its file is created on the background thread
+     * when the first record is written.
+     */
+    ChunkSpill() {
+        CLEANER.register(this, new Closer(this.space));
+    }
+
+    /**
+     * Checks whether an entity can be written to a spill file. Other entities are
+     * never unloaded.
+     * @param entity The entity
+     * @return True if the entity can be written
+     */
+    static boolean canStore(Entity entity) {
+        Class<?> type = entity.getClass();
+        return type == Platform.class || type == Mushroom.class || type == Flag.class || type == Slime.class;
+    }
+
+    /**
+     * Runs a task on the spill thread, after everything submitted before it.
+     * @param task The task
+     * @return The result, once the task has run
+     */
+    static <T> Future<T> submit(Callable<T> task) {
+        return IO.submit(task);
+    }
+
+    /**
+     * Waits for a task on the spill thread to finish.
+     * @param future The task's future
+     * @return The task's result
+     */
+    static <T> T await(Future<T> future) {
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    return future.get();
+                } catch (InterruptedException e) {
+                    // The entities must come back whatever happens
+                    interrupted = true;
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof RuntimeException) {
+                        throw (RuntimeException) e.getCause();
+                    }
+                    throw new IllegalStateException(e.getCause());
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Starts writing the state of some entities in the background. The entities
+     * mustn't be changed again, as they are read on the spill thread.
+     * @param entities The entities, which must all pass canStore
+     * @return The record to read the entities back with, held once
+     */
+    Record write(List<Entity> entities) {
+        Record record = new Record(this);
+        Slot slot = record.slot;
+        IO.execute(() -> store(slot, encode(entities)));
+        return record;
+    }
+
+    /**
+     * Starts writing the entities of many chunks in the background, as one batch to be
+     * gathered into a record per chunk later. This lets a level that is still being read
+     * write out what it holds without making a record for every chunk each time.
+     * @param chunks The entities to write, by chunk index, which must all pass canStore
+     * @return The batch, to pass to gather
+     */
+    Batch writeBatch(Map<Integer, List<Entity>> chunks) {
+        Batch batch = new Batch(chunks.size());
+        List<List<Entity>> groups = new ArrayList<>(chunks.size());
+        int i = 0;
+        for (Map.Entry<Integer, List<Entity>> chunk : chunks.entrySet()) {
+            batch.chunks[i++] = chunk.getKey();
+            groups.add(chunk.getValue());
+        }
+
+        IO.execute(() -> {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            for (int g = 0; g < groups.size(); g++) {
+                byte[] encoded = encode(groups.get(g));
+                batch.lengths[g] = encoded.length;
+                bytes.write(encoded, 0, encoded.length);
+            }
+            store(batch.slot, bytes.toByteArray());
+        });
+        return batch;
+    }
+
+    /**
+     * Starts gathering batches into one record per chunk in the background, and frees
+     * the batches once it is done. Each record holds its chunk's entities in the order
+     * of the batches.
+     * @param batches The batches, in the order they were written, which mustn't be used again
+     * @return The record of each chunk in the batches, by chunk index, each held once
+     */
+    Map<Integer, Record> gather(List<Batch> batches) {
+        List<Batch> gathered = new ArrayList<>(batches);
+        TreeMap<Integer, Record> records = new TreeMap<>();
+        for (Batch batch : batches) {
+            for (int chunk : batch.chunks) {
+                records.computeIfAbsent(chunk, c -> new Record(this));
+            }
+        }
+
+        int[] chunks = new int[records.size()];
+        Slot[] slots = new Slot[records.size()];
+        int i = 0;
+        for (Map.Entry<Integer, Record> record : records.entrySet()) {
+            chunks[i] = record.getKey();
+            slots[i] = record.getValue().slot;
+            i++;
+        }
+
+        IO.execute(() -> gather(gathered, chunks, slots));
+        return records;
+    }
+
+    /**
+     * Copies each chunk's part of every batch into the chunk's record, in the file or
+     * else in memory, then frees the batches. Runs on the spill thread.
+     */
+    private void gather(List<Batch> batches, int[] chunks, Slot[] slots) {
+        for (Batch batch : batches) {
+            for (int i = 0; i < batch.chunks.length; i++) {
+                slots[Arrays.binarySearch(chunks, batch.chunks[i])].length += batch.lengths[i];
+            }
+        }
+
+        try {
+            gather(batches, chunks, slots, false);
+        } catch (IOException e) {
+            space.fail(e);
+            try {
+                gather(batches, chunks, slots, true);
+            } catch (IOException again) {
+                throw new UncheckedIOException(again);
+            }
+        }
+
+        for (Batch batch : batches) {
+            space.free(batch.slot);
+        }
+    }
+
+    private void gather(List<Batch> batches, int[] chunks, Slot[] slots, boolean inMemory) throws IOException {
+        for (Slot slot : slots) {
+            if (inMemory) {
+                slot.bytes = new byte[slot.length];
+            } else {
+                slot.offset = space.allocate(slot.length);
+            }
+        }
+
+        int[] filled = new int[slots.length];
+        for (Batch batch : batches) {
+            ByteBuffer buffer = bytes(batch.slot);
+            for (int i = 0; i < batch.chunks.length; i++) {
+                int target = Arrays.binarySearch(chunks, batch.chunks[i]);
+                Slot slot = slots[target];
+                buffer.limit(buffer.position() + batch.lengths[i]);
+                if (inMemory) {
+                    buffer.get(slot.bytes, filled[target], batch.lengths[i]);
+                } else {
+                    int start = buffer.position();
+                    while (buffer.hasRemaining()) {
+                        space.channel.write(buffer, slot.offset + filled[target] + buffer.position() - start);
+                    }
+                }
+                filled[target] += batch.lengths[i];
+            }
+        }
+    }
+
+    /**
+     * Encodes the entities of a record. Runs on the spill thread.
+     */
+    private byte[] encode(List<Entity> entities) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(entities.size() * 24);
+        DataOutputStream out = new DataOutputStream(bytes);
+
+        try {
+            for (Entity entity : entities) {
+                if (entity instanceof Platform) {
+                    out.writeByte(PLATFORM);
+                } else if (entity instanceof Mushroom) {
+                    out.writeByte(MUSHROOM);
+                } else if (entity instanceof Flag) {
+                    out.writeByte(FLAG);
+                } else {
+                    out.writeByte(SLIME);
+                }
+                out.writeDouble(entity.getXPos());
+                out.writeDouble(entity.getYPos());
+
+                if (entity instanceof Slime) {
+                    // Everything the slime moves by, so it carries on (mid-fall, say) when reloaded
+                    Slime slime = (Slime) entity;
+                    out.writeDouble(slime.getXVelocity());
+                    out.writeDouble(slime.getYVelocity());
+                    out.writeBoolean(slime.isMovingLeft());
+                    out.writeInt(imageIndexes.computeIfAbsent(slime.getImagePath(), image -> {
+                        images.add(image);
+                        return images.size() - 1;
+                    }));
+                    out.writeInt(strategyIndexes.computeIfAbsent(slime.getStrategy(), strategy -> {
+                        strategies.add(strategy);
+                        return strategies.size() - 1;
+                    }));
+                }
+            }
+        } catch (IOException e) {
+            // Writing to a byte array doesn't fail
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Puts an encoded record in the file, or keeps it in memory if that fails.
+     * Runs on the spill thread.
+     */
+    private void store(Slot slot, byte[] bytes) {
+        slot.length = bytes.length;
+        try {
+            slot.offset = space.allocate(bytes.length);
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            while (buffer.hasRemaining()) {
+                space.channel.write(buffer, slot.offset + buffer.position());
+            }
+        } catch (IOException e) {
+            space.fail(e);
+            slot.bytes = bytes;
+        }
+    }
+
+    /**
+     * Recreates the entities written to a record. Runs on the spill thread.
+     */
+    private void read(Slot slot, List<Entity> entities) {
+        ByteBuffer buffer;
+        try {
+            buffer = bytes(slot);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        while (buffer.hasRemaining()) {
+            byte type = buffer.get();
+            double x = buffer.getDouble();
+            double y = buffer.getDouble();
+
+            switch (type) {
+                case PLATFORM:
+                    entities.add(new Platform(x, y));
+                    break;
+                case MUSHROOM:
+                    entities.add(new Mushroom(x, y));
+                    break;
+                case FLAG:
+                    entities.add(new Flag(x, y));
+                    break;
+                default:
+                    double xVelocity = buffer.getDouble();
+                    double yVelocity = buffer.getDouble();
+                    boolean left = buffer.get() != 0;
+                    String image = images.get(buffer.getInt());
+                    EnemyStrategy strategy = strategies.get(buffer.getInt());
+                    Slime slime = new Slime(image, x, y, left, strategy);
+                    slime.setVelocity(xVelocity, yVelocity);
+                    entities.add(slime);
+            }
+        }
+    }
+
+    /**
+     * Gets the bytes of a record or batch. Runs on the spill thread.
+     */
+    private ByteBuffer bytes(Slot slot) throws IOException {
+        if (slot.bytes != null) {
+            return ByteBuffer.wrap(slot.bytes);
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(slot.length);
+        while (buffer.hasRemaining()) {
+            if (space.channel.read(buffer, slot.offset + buffer.position()) < 0) {
+                throw new IOException("Chunk spill file is shorter than expected");
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Where a group of entities was written. Holds on to the spill file, so the
+     * file lives as long as any level that may read it. Counts the levels (and level
+     * templates) holding it; once none do, its space is freed. Levels are made from
+     * templates on loader threads as well as the game thread, so the count is atomic.
+     */
+    static final class Record {
+        private final ChunkSpill spill;
+        private final Slot slot = new Slot();
+        private final Cleaner.Cleanable cleanable;
+        private final AtomicInteger holders = new AtomicInteger(1);
+
+        private Record(ChunkSpill spill) {
+            this.spill = spill;
+            this.cleanable = CLEANER.register(this, new Freer(spill.space, slot));
+        }
+
+        /**
+         * Recreates the entities written to this record. Only called on the spill thread.
+         * @param entities The list to add the entities to
+         */
+        void read(List<Entity> entities) {
+            spill.read(slot, entities);
+        }
+
+        /**
+         * Records that another level holds this record.
+         */
+        void retain() {
+            holders.incrementAndGet();
+        }
+
+        /**
+         * Records that a level no longer holds this record, freeing it after any
+         * reads already submitted if it was the last.
+         */
+        void release() {
+            if (holders.decrementAndGet() == 0) {
+                cleanable.clean();
+            }
+        }
+    }
+
+    /**
+     * The entities of many chunks, written together by writeBatch until gather
+     * splits them into records.
+     */
+    static final class Batch {
+        private final Slot slot = new Slot();
+        private final int[] chunks;
+
+        /**
+         * The length of each chunk's entities in the batch. Only used on the spill thread.
+         */
+        private final int[] lengths;
+
+        private Batch(int size) {
+            this.chunks = new int[size];
+            this.lengths = new int[size];
+        }
+    }
+
+    /**
+     * Where a record's bytes are. Only used on the spill thread.
+     */
+    private static final class Slot {
+        private long offset;
+        private int length;
+        /**
+         * The record, if it is kept in memory rather than in the file.
+         */
+        private byte[] bytes;
+        private boolean freed;
+    }
+
+    /**
+     * The spill file and the gaps left in it by freed records. Only used on the spill thread.
+     */
+    private static final class Space {
+        private FileChannel channel;
+        private boolean failed;
+        private boolean closed;
+
+        /**
+         * The length of the file.
+         */
+        private long size;
+
+        /**
+         * The length of each gap, by offset. Neighbouring gaps are always merged.
+         */
+        private final TreeMap<Long, Long> gaps = new TreeMap<>();
+
+        /**
+         * Finds room for a record, in the first gap it fits or else at the end of the file.
+         */
+        long allocate(int length) throws IOException {
+            if (failed || closed) {
+                throw new IOException("No chunk spill file");
+            }
+            if (channel == null) {
+                Path file = Files.createTempFile("stickman-chunks", ".bin");
+                channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                        StandardOpenOption.DELETE_ON_CLOSE);
+            }
+
+            for (Map.Entry<Long, Long> gap : gaps.entrySet()) {
+                long offset = gap.getKey();
+                long gapLength = gap.getValue();
+                if (gapLength >= length) {
+                    gaps.remove(offset);
+                    if (gapLength > length) {
+                        gaps.put(offset + length, gapLength - length);
+                    }
+                    return offset;
+                }
+            }
+
+            long offset = size;
+            size += length;
+            return offset;
+        }
+
+        /**
+         * Returns a record's space, merging it with the gaps either side and
+         * shortening the file if it was at the end.
+         */
+        void free(Slot slot) {
+            if (slot.freed) {
+                return;
+            }
+            slot.freed = true;
+            if (slot.bytes != null) {
+                slot.bytes = null;
+                return;
+            }
+            if (channel == null || closed || slot.length == 0) {
+                return;
+            }
+
+            long offset = slot.offset;
+            long length = slot.length;
+            Map.Entry<Long, Long> before = gaps.floorEntry(offset);
+            if (before != null && before.getKey() + before.getValue() == offset) {
+                gaps.remove(before.getKey());
+                offset = before.getKey();
+                length += before.getValue();
+            }
+            Long after = gaps.remove(offset + length);
+            if (after != null) {
+                length += after;
+            }
+
+            if (offset + length == size) {
+                size = offset;
+                try {
+                    channel.truncate(size);
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            } else {
+                gaps.put(offset, length);
+            }
+        }
+
+        /**
+         * Stops using the file after an error; later records stay in memory.
+         */
+        void fail(IOException e) {
+            if (!failed) {
+                e.printStackTrace();
+                failed = true;
+            }
+        }
+
+        /**
+         * Closes (and so deletes) the file.
+         */
+        void close() {
+            closed = true;
+            if (channel != null) {
+                try {
+                    channel.close();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+
+    /**
+     * Frees a record's space, when it is released or garbage collected. Mustn't refer to the record.
+     */
+    private static final class Freer implements Runnable {
+        private final Space space;
+        private final Slot slot;
+
+        Freer(Space space, Slot slot) {
+            this.space = space;
+            this.slot = slot;
+        }
+
+        @Override
+        public void run() {
+            IO.execute(() -> space.free(slot));
+        }
+    }
+
+    /**
+     * Closes the file once the spill is unreachable. Mustn't refer to the spill.
+     */
+    private static final class Closer implements Runnable {
+        private final Space space;
+
+        Closer(Space space) {
+            this.space = space;
+        }
+
+        @Override
+        public void run() {
+            IO.execute(space::close);
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package stickman.level;
+
+import stickman.entity.Entity;
+import stickman.entity.moving.MovingEntity;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Index of the solid entities that never move in the loaded chunks of a level, kept
+ * as one StaticSolidIndex per chunk. A solid belongs to the chunk its left edge is in,
+ * though it may reach into later ones, so queries skip a chunk by the x-range its
+ * solids cover rather than by its index. RegionStreamer drops a chunk's index when it
+ * unloads the chunk and adds a new one, built on the spill thread, when the chunk is
+ * loaded again, so only the loaded part of the level is indexed. The per-chunk
+ * indexes never change, so copies of a level share them.
+ */
+public class ChunkedSolidIndex implements SolidIndex {
+
+    /**
+     * Whether touching solids are merged when a chunk's index is built.
+     */
+    private final boolean mergeSolids;
+
+    /**
+     * The chunk index of each StaticSolidIndex, sorted. A chunk may have more than one.
+     */
+    private int[] chunks;
+
+    /**
+     * The index of the solids in each chunk, in the same order as chunks.
+     */
+    private StaticSolidIndex[] indexes;
+
+    private int size;
+
+    /**
+     * Creates a new ChunkedSolidIndex object with no chunks.
+     * @param mergeSolids Whether touching solids are merged when a chunk's index is built
+     */
+    public ChunkedSolidIndex(boolean mergeSolids) {
+        this.mergeSolids = mergeSolids;
+        this.chunks = new int[8];
+        this.indexes = new StaticSolidIndex[8];
+    }
+
+    /**
+     * Builds an index of the solid entities in a list that never move, chunk by chunk.
+     * Other entities are ignored.
+     * @param entities The entities to index
+     * @param mergeSolids Whether touching solids are merged
+     * @return The corresponding index
+     */
+    public static ChunkedSolidIndex of(List<? extends Entity> entities, boolean mergeSolids) {
+        Map<Integer, List<Entity>> solids = new TreeMap<>();
+        for (Entity entity : entities) {
+            if (isStaticSolid(entity)) {
+                solids.computeIfAbsent(RegionStreamer.chunk(entity.getXPos()), c -> new ArrayList<>()).add(entity);
+            }
+        }
+
+        ChunkedSolidIndex index = new ChunkedSolidIndex(mergeSolids);
+        for (Map.Entry<Integer, List<Entity>> chunk : solids.entrySet()) {
+            index.put(chunk.getKey(), index.build(chunk.getValue()));
+        }
+        return index;
+    }
+
+    /**
+     * Checks whether an entity belongs in the index.
+     * @param entity The entity
+     * @return True if the entity is solid and never moves
+     */
+    static boolean isStaticSolid(Entity entity) {
+        return entity.isSolid() && !(entity instanceof MovingEntity);
+    }
+
+    /**
+     * Builds the index of one chunk from its entities. Doesn't change this index, so it
+     * can run on any thread.
+     * @param entities The entities in the chunk
+     * @return The index of the solids among them that never move
+     */
+    StaticSolidIndex build(List<? extends Entity> entities) {
+        List<Entity> solids = new ArrayList<>();
+        for (Entity entity : entities) {
+            if (isStaticSolid(entity)) {
+                solids.add(entity);
+            }
+        }
+        if (solids.isEmpty()) {
+            return StaticSolidIndex.EMPTY;
+        }
+        return mergeSolids ? StaticSolidIndex.merged(solids) : StaticSolidIndex.of(solids);
+    }
+
+    /**
+     * Adds the index of a chunk that has been loaded.
+     * @param chunk The chunk index
+     * @param index The index of the static solids in the chunk
+     */
+    void put(int chunk, StaticSolidIndex index) {
+        if (index.size() == 0) {
+            return;
+        }
+        if (size == chunks.length) {
+            chunks = Arrays.copyOf(chunks, size * 2);
+            indexes = Arrays.copyOf(indexes, size * 2);
+        }
+
+        int i = size;
+        while (i > 0 && chunks[i - 1] > chunk) {
+            chunks[i] = chunks[i - 1];
+            indexes[i] = indexes[i - 1];
+            i--;
+        }
+        chunks[i] = chunk;
+        indexes[i] = index;
+        size++;
+    }
+
+    /**
+     * Drops the indexes of the chunks outside a range, when they are unloaded.
+     * @param from The first chunk to keep
+     * @param to The last chunk to keep
+     */
+    void removeOutside(int from, int to) {
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            if (chunks[i] >= from && chunks[i] <= to) {
+                chunks[kept] = chunks[i];
+                indexes[kept] = indexes[i];
+                kept++;
+            }
+        }
+        Arrays.fill(indexes, kept, size, null);
+        size = kept;
+    }
+
+    /**
+     * Creates a copy holding the same chunks, for a copy of the level.
+     * @return The copy
+     */
+    ChunkedSolidIndex copy() {
+        ChunkedSolidIndex copy = new ChunkedSolidIndex(mergeSolids);
+        copy.chunks = Arrays.copyOf(chunks, chunks.length);
+        copy.indexes = Arrays.copyOf(indexes, indexes.length);
+        copy.size = size;
+        return copy;
+    }
+
+    /**
+     * Gets the number of solids in the loaded chunks.
+     * @return The number of solids
+     */
+    public int size() {
+        int solids = 0;
+        for (int i = 0; i < size; i++) {
+            solids += indexes[i].size();
+        }
+        return solids;
+    }
+
+    @Override
+    public double nearestHorizontal(Entity entity, boolean left, double limit) {
+        double leftEdge = entity.getXPos();
+        double rightEdge = leftEdge + entity.getWidth();
+
+        double res = limit;
+        for (int i = 0; i < size; i++) {
+            // Skip chunks with no solids on the side the ray goes
+            StaticSolidIndex index = indexes[i];
+            if (left ? index.minX() <= leftEdge : index.maxX() >= rightEdge) {
+                res = index.nearestHorizontal(entity, left, res);
+            }
+        }
+        return res;
+    }
+
+    @Override
+    public double nearestVertical(Entity entity, boolean up, double limit) {
+        double leftEdge = entity.getXPos();
+        double rightEdge = leftEdge + entity.getWidth();
+
+        double res = limit;
+        for (int i = 0; i < size; i++) {
+            StaticSolidIndex index = indexes[i];
+            if (index.minX() < rightEdge && index.maxX() > leftEdge) {
+                res = index.nearestVertical(entity, up, res);
+            }
+        }
+        return res;
+    }
+
+    @Override
+    public boolean collides(Entity entity) {
+        double leftEdge = entity.getXPos();
+        double rightEdge = leftEdge + entity.getWidth();
+
+        for (int i = 0; i < size; i++) {
+            StaticSolidIndex index = indexes[i];
+            if (index.minX() < rightEdge && index.maxX() > leftEdge && index.collides(entity)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,45 @@
+package stickman.level;
+
+import stickman.entity.Entity;
+
+/**
+ * Combines the static solids of a level with the solids that can move,
+ * so entities can query both as a single SolidIndex.
+ */
+class CompositeSolidIndex implements SolidIndex {
+
+    /**
+     * The solids that never move.
+     */
+    private final SolidIndex staticSolids;
+
+    /**
+     * The solids that can move.
+     */
+    private final SolidIndex movingSolids;
+
+    /**
+     * Creates a new CompositeSolidIndex object.
+     * @param staticSolids The solids that never move
+     * @param movingSolids The solids that can move
+     */
+    CompositeSolidIndex(SolidIndex staticSolids, SolidIndex movingSolids) {
+        this.staticSolids = staticSolids;
+        this.movingSolids = movingSolids;
+    }
+
+    @Override
+    public double nearestHorizontal(Entity entity, boolean left, double limit) {
+        return movingSolids.nearestHorizontal(entity, left, staticSolids.nearestHorizontal(entity, left, limit));
+    }
+
+    @Override
+    public double nearestVertical(Entity entity, boolean up, double limit) {
+        return movingSolids.nearestVertical(entity, up, staticSolids.nearestVertical(entity, up, limit));
+    }
+
+    @Override
+    public boolean collides(Entity entity) {
+        return staticSolids.collides(entity) || movingSolids.collides(entity);
+    }
+}
@@ -0,0 +1,389 @@
+package stickman.level;
+
+import stickman.entity.Entity;
+import stickman.entity.Interactable;
+import stickman.entity.moving.MovingEntity;
+import stickman.entity.moving.other.Projectile;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+/**
+ * Generational slot map holding every entity in a level. Each entity gets a
+ * stable handle when added, and can be removed in constant time. The store
+ * keeps typed views (moving entities, interactables, projectiles) that are
+ * updated alongside it, so callers never have to filter the full list.
+ * Views are packed arrays: removal moves the last element into the freed
+ * position, so iteration order depends only on the sequence of additions
+ * and removals.
+ *
+ * An entity can be put to sleep, which takes it out of the typed views
+ * (so it isn't updated or collided with) while keeping it in the store
+ * and in the view of all entities.
+ */
+public class EntityStore {
+
+    /**
+     * The starting number of slots.
+     */
+    private static final int INITIAL_CAPACITY = 64;
+
+    /**
+     * The entity held in each slot, or null if the slot is free.
+     */
+    private Entity[] slots;
+
+    /**
+     * The generation of each slot. Incremented whenever the slot is freed so stale handles stop matching.
+     */
+    private int[] generations;
+
+    /**
+     * Whether the entity in each slot is asleep.
+     */
+    private boolean[] asleep;
+
+    /**
+     * The next free slot after each free slot.
+     */
+    private int[] nextFree;
+
+    /**
+     * The first free slot, or -1 if every slot up to slotCount is in use.
+     */
+    private int freeHead = -1;
+
+    /**
+     * The number of slots that have ever been used.
+     */
+    private int slotCount;
+
+    /**
+     * Every entity in the store.
+     */
+    private final View<Entity> all = new View<>();
+
+    /**
+     * The entities that need to be updated every frame.
+     */
+    private final View<MovingEntity> moving = new View<>();
+
+    /**
+     * The entities that can interact with the player.
+     */
+    private final View<Interactable> interactables = new View<>();
+
+    /**
+     * The projectiles (bullets) in the level.
+     */
+    private final View<Projectile> projectiles = new View<>();
+
+    /**
+     * Creates an empty EntityStore.
+     */
+    public EntityStore() {
+        this.slots = new Entity[INITIAL_CAPACITY];
+        this.generations = new int[INITIAL_CAPACITY];
+        this.asleep = new boolean[INITIAL_CAPACITY];
+        this.nextFree = new int[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Adds an entity to the store and to every view matching its type.
+     * @param entity The entity to add
+     * @return The handle of the entity
+     */
+    public long add(Entity entity) {
+        int slot;
+        if (freeHead >= 0) {
+            slot = freeHead;
+            freeHead = nextFree[slot];
+        } else {
+            if (slotCount == slots.length) {
+                grow();
+            }
+            slot = slotCount++;
+        }
+
+        slots[slot] = entity;
+
+        all.insert(slot, entity);
+        insertTyped(slot, entity);
+
+        return handle(slot);
+    }
+
+    /**
+     * Removes the entity with the given handle.
+     * @param handle The handle of the entity
+     * @return Whether an entity was removed
+     */
+    public boolean remove(long handle) {
+        int slot = slotOf(handle);
+        if (slot < 0) {
+            return false;
+        }
+
+        all.delete(slot);
+        moving.delete(slot);
+        interactables.delete(slot);
+        projectiles.delete(slot);
+
+        slots[slot] = null;
+        asleep[slot] = false;
+        generations[slot] = (generations[slot] + 1) & Integer.MAX_VALUE;
+        nextFree[slot] = freeHead;
+        freeHead = slot;
+        return true;
+    }
+
+    /**
+     * Puts the entity with the given handle to sleep, removing it from the moving,
+     * interactable and projectile views. It stays in the view of all entities.
+     * @param handle The handle of the entity
+     * @return Whether the entity was awake and is now asleep
+     */
+    public boolean sleep(long handle) {
+        int slot = slotOf(handle);
+        if (slot < 0 || asleep[slot]) {
+            return false;
+        }
+
+        moving.delete(slot);
+        interactables.delete(slot);
+        projectiles.delete(slot);
+        asleep[slot] = true;
+        return true;
+    }
+
+    /**
+     * Wakes the entity with the given handle, adding it back to the end of every view matching its type.
+     * @param handle The handle of the entity
+     * @return Whether the entity was asleep and is now awake
+     */
+    public boolean wake(long handle) {
+        int slot = slotOf(handle);
+        if (slot < 0 || !asleep[slot]) {
+            return false;
+        }
+
+        insertTyped(slot, slots[slot]);
+        asleep[slot] = false;
+        return true;
+    }
+
+    /**
+     * Checks whether the entity with the given handle is asleep.
+     * @param handle The handle of the entity
+     * @return Whether the entity is in the store and asleep
+     */
+    public boolean isAsleep(long handle) {
+        int slot = slotOf(handle);
+        return slot >= 0 && asleep[slot];
+    }
+
+    /**
+     * Gets the entity with the given handle.
+     * @param handle The handle of the entity
+     * @return The entity, or null if it has been removed
+     */
+    public Entity get(long handle) {
+        int slot = slotOf(handle);
+        return slot < 0 ? null : slots[slot];
+    }
+
+    /**
+     * Checks whether the entity with the given handle is still in the store.
+     * @param handle The handle of the entity
+     * @return Whether the entity is in the store
+     */
+    public boolean contains(long handle) {
+        return slotOf(handle) >= 0;
+    }
+
+    /**
+     * Gets the number of entities in the store.
+     * @return The number of entities
+     */
+    public int size() {
+        return all.size;
+    }
+
+    /**
+     * Gets a read-only view of every entity in the store.
+     * @return Every entity
+     */
+    public View<Entity> all() {
+        return this.all;
+    }
+
+    /**
+     * Gets a read-only view of the moving entities in the store.
+     * @return The moving entities
+     */
+    public View<MovingEntity> moving() {
+        return this.moving;
+    }
+
+    /**
+     * Gets a read-only view of the interactable entities in the store.
+     * @return The interactable entities
+     */
+    public View<Interactable> interactables() {
+        return this.interactables;
+    }
+
+    /**
+     * Gets a read-only view of the projectiles in the store.
+     * @return The projectiles
+     */
+    public View<Projectile> projectiles() {
+        return this.projectiles;
+    }
+
+    /**
+     * Adds an entity to every typed view matching its type.
+     */
+    private void insertTyped(int slot, Entity entity) {
+        if (entity instanceof MovingEntity) {
+            moving.insert(slot, (MovingEntity) entity);
+        }
+        if (entity instanceof Interactable) {
+            interactables.insert(slot, (Interactable) entity);
+        }
+        if (entity instanceof Projectile) {
+            projectiles.insert(slot, (Projectile) entity);
+        }
+    }
+
+    /**
+     * Packs a slot and its current generation into a handle.
+     */
+    private long handle(int slot) {
+        return ((long) generations[slot] << 32) | slot;
+    }
+
+    /**
+     * Unpacks a handle, checking that it still refers to a live entity.
+     * @return The slot of the handle, or -1 if the handle is stale
+     */
+    private int slotOf(long handle) {
+        if (handle < 0) {
+            return -1;
+        }
+        int slot = (int) handle;
+        int generation = (int) (handle >>> 32);
+        if (slot >= slotCount || slots[slot] == null || generations[slot] != generation) {
+            return -1;
+        }
+        return slot;
+    }
+
+    /**
+     * Doubles the number of slots in the store and every view.
+     */
+    private void grow() {
+        int capacity = slots.length * 2;
+        slots = Arrays.copyOf(slots, capacity);
+        generations = Arrays.copyOf(generations, capacity);
+        asleep = Arrays.copyOf(asleep, capacity);
+        nextFree = Arrays.copyOf(nextFree, capacity);
+        all.growSlots(capacity);
+        moving.growSlots(capacity);
+        interactables.growSlots(capacity);
+        projectiles.growSlots(capacity);
+    }
+
+    /**
+     * A packed, read-only list of the entities of one type. Each element
+     * remembers its slot, so it can be removed without searching.
+     * @param <T> The type of entity in the view
+     */
+    public class View<T extends Entity> extends AbstractList<T> implements RandomAccess {
+
+        /**
+         * The entities in the view, packed at the front of the array.
+         */
+        private Object[] dense = new Object[INITIAL_CAPACITY];
+
+        /**
+         * The slot of each packed entity.
+         */
+        private int[] denseToSlot = new int[INITIAL_CAPACITY];
+
+        /**
+         * The packed position of each slot, or -1 if the slot isn't in this view.
+         */
+        private int[] slotToDense;
+
+        /**
+         * The number of entities in the view.
+         */
+        private int size;
+
+        private View() {
+            this.slotToDense = new int[INITIAL_CAPACITY];
+            Arrays.fill(this.slotToDense, -1);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T get(int index) {
+            if (index >= size) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+            }
+            return (T) dense[index];
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        /**
+         * Gets the handle of the entity at a position in the view.
+         * @param index The position in the view
+         * @return The handle of the entity
+         */
+        public long handle(int index) {
+            if (index >= size) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+            }
+            return EntityStore.this.handle(denseToSlot[index]);
+        }
+
+        private void insert(int slot, T entity) {
+            if (size == dense.length) {
+                dense = Arrays.copyOf(dense, size * 2);
+                denseToSlot = Arrays.copyOf(denseToSlot, size * 2);
+            }
+            dense[size] = entity;
+            denseToSlot[size] = slot;
+            slotToDense[slot] = size;
+            size++;
+        }
+
+        private void delete(int slot) {
+            int index = slotToDense[slot];
+            if (index < 0) {
+                return;
+            }
+
+            int last = --size;
+            if (index != last) {
+                dense[index] = dense[last];
+                denseToSlot[index] = denseToSlot[last];
+                slotToDense[denseToSlot[index]] = index;
+            }
+            dense[last] = null;
+            slotToDense[slot] = -1;
+        }
+
+        private void growSlots(int capacity) {
+            int old = slotToDense.length;
+            slotToDense = Arrays.copyOf(slotToDense, capacity);
+            Arrays.fill(slotToDense, old, capacity, -1);
+        }
+    }
+}
@@ -0,0 +1,675 @@
+package stickman.level;
+
+import stickman.entity.moving.enemy.DumbStrategy;
+import stickman.entity.moving.enemy.EnemyStrategy;
+import stickman.entity.moving.enemy.FollowStrategy;
+import stickman.entity.moving.enemy.Slime;
+import stickman.entity.still.Flag;
+import stickman.entity.still.Mushroom;
+import stickman.entity.still.Platform;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Reads a JSON level file a token at a time, adding each entity to a LevelBuilder
+ * as soon as it has been read. Only a small buffer is held besides the entities
+ * themselves, however large the file. Anything that isn't valid JSON, or doesn't
+ * match the level schema, is reported as a LevelFormatException giving the line
+ * and column. Unknown members are skipped, and (as json-simple did, which some of
+ * the existing levels rely on) a missing comma between two members or elements is
+ * tolerated.
+ */
+class JsonLevelReader {
+
+    /**
+     * The number of characters read from the file at a time.
+     */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * The members every level must have.
+     */
+    private static final String[] REQUIRED = {
+            "stickmanSize", "stickmanPos", "lives", "levelDimensions", "platforms", "mushrooms", "enemies", "flag"
+    };
+
+    /**
+     * Powers of ten that are exact as doubles, for converting short decimals.
+     */
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15
+    };
+
+    private final Reader in;
+    private final String file;
+
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private int position;
+    private int limit;
+
+    /**
+     * The line and column of buffer[position], starting at 1.
+     */
+    private int line = 1;
+    private int column = 1;
+
+    /**
+     * Holds the characters of the string or number being read.
+     */
+    private final StringBuilder scratch = new StringBuilder();
+
+    /**
+     * The name of the member most recently read by nextMember.
+     */
+    private String key;
+
+    /**
+     * The coordinates most recently read by readPosition.
+     */
+    private double x;
+    private double y;
+
+    /**
+     * Creates a new JsonLevelReader object.
+     * @param in The level to read, which the caller closes
+     * @param file The name of the level file, for error messages
+     */
+    JsonLevelReader(Reader in, String file) {
+        this.in = in;
+        this.file = file;
+    }
+
+    /**
+     * Reads the whole level, adding it to a LevelBuilder in the same order json-simple
+     * levels used to be read.
+     * @param levelBuilder The builder to add the level to
+     * @throws LevelFormatException If the level is malformed
+     * @throws IOException If the level can't be read
+     */
+    void read(LevelBuilder levelBuilder) throws IOException {
+        int seen = 0;
+        String heroSize = null;
+        double heroX = 0;
+        double flagX = 0;
+        double flagY = 0;
+
+        // Enemy Strategies
+        EnemyStrategy dumb = new DumbStrategy();
+        EnemyStrategy follow = new FollowStrategy();
+
+        beginObject("the level");
+        for (boolean first = true; nextMember(first); first = false) {
+            seen |= markSeen(seen, key);
+
+            switch (key) {
+                case "stickmanSize":
+                    heroSize = readString("\"stickmanSize\"");
+                    break;
+                case "stickmanPos":
+                    readPosition("\"stickmanPos\"", false);
+                    heroX = x;
+                    break;
+                case "lives":
+                    levelBuilder.setLives(readLong("lives"));
+                    break;
+                case "levelDimensions":
+                    readDimensions(levelBuilder);
+                    break;
+                case "platforms":
+                    // Get platforms
+                    beginArray("platforms");
+                    for (boolean firstPlatform = true; nextElement(firstPlatform); firstPlatform = false) {
+                        readPosition("a platform", true);
+                        levelBuilder.addStaticEntity(new Platform(x, y));
+                    }
+                    break;
+                case "mushrooms":
+                    // Get mushrooms
+                    beginArray("mushrooms");
+                    for (boolean firstMushroom = true; nextElement(firstMushroom); firstMushroom = false) {
+                        readPosition("a mushroom", true);
+                        Mushroom shroom = new Mushroom(x, y);
+
+                        levelBuilder.addInteractable(shroom);
+                        levelBuilder.addStaticEntity(shroom);
+                    }
+                    break;
+                case "enemies":
+                    // Get enemies
+                    beginArray("enemies");
+                    for (boolean firstEnemy = true; nextElement(firstEnemy); firstEnemy = false) {
+                        Slime enemy = readEnemy(dumb, follow);
+
+                        levelBuilder.addInteractable(enemy);
+                        levelBuilder.addEnemy(enemy);
+                    }
+                    break;
+                case "flag":
+                    // Added last, wherever it is in the file
+                    readPosition("\"flag\"", true);
+                    flagX = x;
+                    flagY = y;
+                    break;
+                default:
+                    skipValue();
+            }
+        }
+
+        for (int i = 0; i < REQUIRED.length; i++) {
+            if ((seen & (1 << i)) == 0) {
+                throw error("the level has no \"" + REQUIRED[i] + "\"");
+            }
+        }
+        if (peek() != -1) {
+            throw unexpected("the end of the file after the level");
+        }
+
+        levelBuilder.setHero(heroX, heroSize);
+
+        Flag flag = new Flag(flagX, flagY);
+
+        levelBuilder.addInteractable(flag);
+        levelBuilder.addStaticEntity(flag);
+    }
+
+    /**
+     * Records that a required member of the level has been read.
+     * @return The bit for the member, or 0 if it isn't required
+     */
+    private int markSeen(int seen, String member) throws LevelFormatException {
+        for (int i = 0; i < REQUIRED.length; i++) {
+            if (REQUIRED[i].equals(member)) {
+                if ((seen & (1 << i)) != 0) {
+                    throw error("the level has more than one \"" + member + "\"");
+                }
+                return 1 << i;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Reads the levelDimensions object into a LevelBuilder.
+     */
+    private void readDimensions(LevelBuilder levelBuilder) throws IOException {
+        double width = Double.NaN;
+        double height = Double.NaN;
+        double floorHeight = Double.NaN;
+        long time = 0;
+        boolean hasTime = false;
+
+        beginObject("\"levelDimensions\"");
+        for (boolean first = true; nextMember(first); first = false) {
+            switch (key) {
+                case "width":
+                    width = readDouble("width");
+                    break;
+                case "height":
+                    height = readDouble("height");
+                    break;
+                case "floorHeight":
+                    floorHeight = readDouble("floorHeight");
+                    break;
+                case "time":
+                    time = readLong("time");
+                    hasTime = true;
+                    break;
+                default:
+                    skipValue();
+            }
+        }
+
+        if (Double.isNaN(width) || Double.isNaN(height) || Double.isNaN(floorHeight) || !hasTime) {
+            throw error("\"levelDimensions\" needs a width, height, floorHeight and time");
+        }
+
+        levelBuilder.setDimensions(width, height);
+        levelBuilder.setFloorHeight(floorHeight);
+        levelBuilder.setTime(time);
+    }
+
+    /**
+     * Reads an object with an x (and y) coordinate into the x and y fields.
+     * @param name What the object is, for error messages
+     * @param needsY Whether the object must have a y coordinate
+     */
+    private void readPosition(String name, boolean needsY) throws IOException {
+        boolean hasX = false;
+        boolean hasY = false;
+
+        beginObject(name);
+        for (boolean first = true; nextMember(first); first = false) {
+            switch (key) {
+                case "x":
+                    x = readDouble("x");
+                    hasX = true;
+                    break;
+                case "y":
+                    y = readDouble("y");
+                    hasY = true;
+                    break;
+                default:
+                    skipValue();
+            }
+        }
+
+        if (!hasX || (needsY && !hasY)) {
+            throw error(name + " needs " + (needsY ? "an x and y" : "an x"));
+        }
+    }
+
+    /**
+     * Reads an enemy object.
+     */
+    private Slime readEnemy(EnemyStrategy dumb, EnemyStrategy follow) throws IOException {
+        boolean hasX = false;
+        boolean hasY = false;
+        String image = null;
+        Boolean startLeft = null;
+        EnemyStrategy strategy = null;
+
+        beginObject("an enemy");
+        for (boolean first = true; nextMember(first); first = false) {
+            switch (key) {
+                case "x":
+                    x = readDouble("x");
+                    hasX = true;
+                    break;
+                case "y":
+                    y = readDouble("y");
+                    hasY = true;
+                    break;
+                case "path":
+                    image = readString("\"path\"");
+                    break;
+                case "startLeft":
+                    startLeft = readBoolean("startLeft");
+                    break;
+                case "strategy":
+                    strategy = readStrategy(dumb, follow);
+                    break;
+                default:
+                    skipValue();
+            }
+        }
+
+        if (!hasX || !hasY || image == null || startLeft == null || strategy == null) {
+            throw error("an enemy needs an x, y, path, startLeft and strategy");
+        }
+
+        return new Slime(image, x, y, startLeft, strategy);
+    }
+
+    /**
+     * Reads the name of an enemy's strategy.
+     * @return The strategy with that name
+     */
+    private EnemyStrategy readStrategy(EnemyStrategy dumb, EnemyStrategy follow) throws IOException {
+        peek();
+        int startLine = line;
+        int startColumn = column;
+        String strategy = readString("\"strategy\"");
+
+        switch (strategy) {
+            case "dumb":
+                return dumb;
+            case "follow":
+                return follow;
+            default:
+                throw new LevelFormatException(file, startLine, startColumn,
+                        "unknown strategy '" + strategy + "', expected dumb or follow");
+        }
+    }
+
+    /**
+     * Reads the opening brace of an object.
+     * @param name What the object is, for error messages
+     */
+    private void beginObject(String name) throws IOException {
+        if (peek() != '{') {
+            throw unexpected("an object for " + name);
+        }
+        next();
+    }
+
+    /**
+     * Reads the opening bracket of an array.
+     * @param name The member holding the array, for error messages
+     */
+    private void beginArray(String name) throws IOException {
+        if (peek() != '[') {
+            throw unexpected("an array for \"" + name + "\"");
+        }
+        next();
+    }
+
+    /**
+     * Moves to the next member of an object, reading its name into key.
+     * @param first Whether this is the first member of the object
+     * @return False if the end of the object was reached instead
+     */
+    private boolean nextMember(boolean first) throws IOException {
+        int c = peek();
+        if (c == '}') {
+            next();
+            return false;
+        }
+        if (!first && c == ',') {
+            next();
+        }
+
+        key = readString("a member name or '}'");
+
+        if (peek() != ':') {
+            throw unexpected("':' after \"" + key + "\"");
+        }
+        next();
+        return true;
+    }
+
+    /**
+     * Moves to the next element of an array.
+     * @param first Whether this is the first element of the array
+     * @return False if the end of the array was reached instead
+     */
+    private boolean nextElement(boolean first) throws IOException {
+        int c = peek();
+        if (c == ']') {
+            next();
+            return false;
+        }
+        if (!first && c == ',') {
+            next();
+        }
+        return true;
+    }
+
+    /**
+     * Reads and discards a value of any type.
+     */
+    private void skipValue() throws IOException {
+        int c = peek();
+        if (c == '{') {
+            next();
+            for (boolean first = true; nextMember(first); first = false) {
+                skipValue();
+            }
+        } else if (c == '[') {
+            next();
+            for (boolean first = true; nextElement(first); first = false) {
+                skipValue();
+            }
+        } else if (c == '"') {
+            readString("a value");
+        } else if (c == 't' || c == 'f') {
+            readBoolean(key);
+        } else if (c == 'n') {
+            readLiteral("null");
+        } else if (c == '-' || (c >= '0' && c <= '9')) {
+            readDouble(key);
+        } else {
+            throw unexpected("a value for \"" + key + "\"");
+        }
+    }
+
+    /**
+     * Reads a string, handling escapes.
+     * @param name What the string is, for error messages
+     */
+    private String readString(String name) throws IOException {
+        if (peek() != '"') {
+            throw unexpected(name);
+        }
+        next();
+
+        scratch.setLength(0);
+        while (true) {
+            if (position == limit && !fill()) {
+                throw error("the file ends inside a string");
+            }
+            char c = next();
+            if (c == '"') {
+                return scratch.toString();
+            }
+            if (c == '\\') {
+                c = readEscape();
+            } else if (c < ' ') {
+                throw error("strings can't contain control characters");
+            }
+            scratch.append(c);
+        }
+    }
+
+    /**
+     * Reads the rest of an escape sequence, after the backslash.
+     */
+    private char readEscape() throws IOException {
+        if (position == limit && !fill()) {
+            throw error("the file ends inside a string");
+        }
+        char c = next();
+        switch (c) {
+            case '"':
+            case '\\':
+            case '/':
+                return c;
+            case 'b':
+                return '\b';
+            case 'f':
+                return '\f';
+            case 'n':
+                return '\n';
+            case 'r':
+                return '\r';
+            case 't':
+                return '\t';
+            case 'u':
+                int code = 0;
+                for (int i = 0; i < 4; i++) {
+                    int digit = position < limit || fill() ? Character.digit(buffer[position], 16) : -1;
+                    if (digit < 0) {
+                        throw error("\\u must be followed by four hex digits");
+                    }
+                    next();
+                    code = code * 16 + digit;
+                }
+                return (char) code;
+            default:
+                throw error("unknown escape \\" + c);
+        }
+    }
+
+    /**
+     * Reads true or false.
+     * @param name The member holding the value, for error messages
+     */
+    private boolean readBoolean(String name) throws IOException {
+        int c = peek();
+        if (c == 't') {
+            readLiteral("true");
+            return true;
+        }
+        if (c == 'f') {
+            readLiteral("false");
+            return false;
+        }
+        throw unexpected("true or false for \"" + name + "\"");
+    }
+
+    /**
+     * Reads the given word, such as null.
+     */
+    private void readLiteral(String literal) throws IOException {
+        peek();
+        int startLine = line;
+        int startColumn = column;
+        for (int i = 0; i < literal.length(); i++) {
+            if ((position == limit && !fill()) || buffer[position] != literal.charAt(i)) {
+                throw new LevelFormatException(file, startLine, startColumn, "expected " + literal);
+            }
+            next();
+        }
+    }
+
+    /**
+     * Reads a number.
+     * @param name The member holding the number, for error messages
+     */
+    private double readDouble(String name) throws IOException {
+        readNumber(name);
+        int startColumn = column - scratch.length();
+
+        double value = parseShortDecimal();
+        if (!Double.isNaN(value)) {
+            return value;
+        }
+
+        try {
+            return Double.parseDouble(scratch.toString());
+        } catch (NumberFormatException e) {
+            throw new LevelFormatException(file, line, startColumn, "\"" + scratch + "\" isn't a number");
+        }
+    }
+
+    /**
+     * Reads a whole number.
+     * @param name The member holding the number, for error messages
+     */
+    private long readLong(String name) throws IOException {
+        readNumber(name);
+        int startColumn = column - scratch.length();
+
+        try {
+            return Long.parseLong(scratch.toString());
+        } catch (NumberFormatException e) {
+            throw new LevelFormatException(file, line, startColumn,
+                    "\"" + name + "\" must be a whole number, not " + scratch);
+        }
+    }
+
+    /**
+     * Reads the characters of a number into scratch.
+     */
+    private void readNumber(String name) throws IOException {
+        int c = peek();
+        if (c != '-' && (c < '0' || c > '9')) {
+            throw unexpected("a number for \"" + name + "\"");
+        }
+
+        scratch.setLength(0);
+        while (position < limit || fill()) {
+            char d = buffer[position];
+            if ((d < '0' || d > '9') && d != '-' && d != '+' && d != '.' && d != 'e' && d != 'E') {
+                break;
+            }
+            scratch.append(d);
+            position++;
+            column++;
+        }
+    }
+
+    /**
+     * Converts scratch to a double without going through a String, if it is a plain
+     * decimal of at most 15 digits (like every coordinate in a level). Both the digits
+     * and the power of ten are then exact as doubles, so one division rounds correctly.
+     * @return The number, or NaN if scratch isn't a short plain decimal
+     */
+    private double parseShortDecimal() {
+        int length = scratch.length();
+        boolean negative = length > 0 && scratch.charAt(0) == '-';
+
+        long digits = 0;
+        int count = 0;
+        int decimals = -1;
+        for (int i = negative ? 1 : 0; i < length; i++) {
+            char c = scratch.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits = digits * 10 + (c - '0');
+                count++;
+                if (decimals >= 0) {
+                    decimals++;
+                }
+            } else if (c == '.' && decimals < 0 && count > 0) {
+                decimals = 0;
+            } else {
+                return Double.NaN;
+            }
+        }
+
+        if (count == 0 || count > 15 || decimals == 0) {
+            return Double.NaN;
+        }
+
+        double value = decimals > 0 ? digits / POWERS_OF_TEN[decimals] : digits;
+        return negative ? -value : value;
+    }
+
+    /**
+     * Skips whitespace and returns the next character without consuming it.
+     * @return The character, or -1 at the end of the file
+     */
+    private int peek() throws IOException {
+        while (position < limit || fill()) {
+            char c = buffer[position];
+            if (c == '\n') {
+                line++;
+                column = 1;
+            } else if (c == ' ' || c == '\t' || c == '\r') {
+                column++;
+            } else {
+                return c;
+            }
+            position++;
+        }
+        return -1;
+    }
+
+    /**
+     * Consumes the next character, which the caller has checked exists.
+     */
+    private char next() {
+        char c = buffer[position++];
+        if (c == '\n') {
+            line++;
+            column = 1;
+        } else {
+            column++;
+        }
+        return c;
+    }
+
+    /**
+     * Reads the next block of the file into the buffer.
+     * @return False at the end of the file
+     */
+    private boolean fill() throws IOException {
+        int read;
+        do {
+            read = in.read(buffer, 0, buffer.length);
+        } while (read == 0);
+
+        if (read < 0) {
+            return false;
+        }
+        position = 0;
+        limit = read;
+        return true;
+    }
+
+    /**
+     * Creates an exception for a problem at the current position.
+     */
+    private LevelFormatException error(String problem) {
+        return new LevelFormatException(file, line, column, problem);
+    }
+
+    /**
+     * Creates an exception for finding something other than what was expected next.
+     */
+    private LevelFormatException unexpected(String expected) throws IOException {
+        int c = peek();
+        String found = c == -1 ? "the end of the file" : "'" + (char) c + "'";
+        return error("expected " + expected + " but found " + found);
+    }
+}
@@ -15,10 +15,28 @@ public interface Level {
 
     /**
      * Gets all the entities within the Level.
-     * @return All the entities within the level
+     * @return A read-only list of all the entities within the level
      */
     List<Entity> getEntities();
 
+    /**
+     * Adds an entity to the Level.
+     * @param entity The entity to add
+     */
+    void addEntity(Entity entity);
+
+    /**
+     * Gets the index of solid entities within the Level.
+     * @return The solid entities within the level
+     */
+    SolidIndex getSolids();
+
+    /**
+     * Gets the index of solid entities that never move, in the loaded part of the level.
+     * @return The static solid entities within the loaded part of the level
+     */
+    SolidIndex getStaticSolids();
+
     /**
      * Gets the height of the level.
      * @return The height of the level
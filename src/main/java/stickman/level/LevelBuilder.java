@@ -57,9 +57,25 @@ public interface LevelBuilder {
 
     LevelBuilder setLives(long lives);
 
+    /**
+     * Sets whether static solids that touch or overlap are merged into larger
+     * rectangles for collisions. The entities themselves are still drawn one by one.
+     * Off unless -Dstickman.mergeSolids=true is set.
+     * @param mergeSolids Whether to merge the static solids
+     * @return This instance of LevelBuilder
+     */
+    LevelBuilder setMergeSolids(boolean mergeSolids);
+
     /**
      * Builds a Level object based on the previously set parameters.
      * @return The corresponding Level object
      */
     Level build();
+
+    /**
+     * Builds a LevelTemplate based on the previously set parameters, which can create
+     * any number of fresh copies of the level. The builder's GameEngine is ignored.
+     * @return The corresponding LevelTemplate
+     */
+    LevelTemplate buildTemplate();
 }
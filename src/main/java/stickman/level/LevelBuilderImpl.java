@@ -1,27 +1,23 @@
 package stickman.level;
 
-import org.json.simple.JSONArray;
-import org.json.simple.JSONObject;
-import org.json.simple.parser.JSONParser;
-import org.json.simple.parser.ParseException;
 import stickman.entity.Entity;
 import stickman.entity.Interactable;
 import stickman.entity.moving.MovingEntity;
-import stickman.entity.moving.enemy.DumbStrategy;
-import stickman.entity.moving.enemy.EnemyStrategy;
-import stickman.entity.moving.enemy.FollowStrategy;
-import stickman.entity.moving.enemy.Slime;
-import stickman.entity.still.Flag;
-import stickman.entity.still.Mushroom;
-import stickman.entity.still.Platform;
 import stickman.model.GameEngine;
+import stickman.perf.LevelLoadEvent;
 
-import java.io.FileReader;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStreamReader;
 import java.io.Reader;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
-import java.util.Iterator;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
 
 /**
  * Concrete implementation of the LevelBuilder interface.
@@ -43,6 +39,20 @@ public class LevelBuilderImpl implements LevelBuilder {
      */
     private static final double DEFAULT_LEVEL_HEIGHT = 500;
 
+    /**
+     * Whether static solids are merged unless setMergeSolids says otherwise.
+     * Off by default, as it changes collisions for entities already inside a solid;
+     * turned on with -Dstickman.mergeSolids=true.
+     */
+    private static final boolean DEFAULT_MERGE_SOLIDS = Boolean.getBoolean("stickman.mergeSolids");
+
+    /**
+     * How many entities are held while a level is read before the ones the spill
+     * file can hold are written to it, so reading a wide level doesn't need them all
+     * in memory at once.
+     */
+    private static final int SPILL_THRESHOLD = 4096;
+
     /**
      * The list of moving entities.
      */
@@ -58,6 +68,11 @@ public class LevelBuilderImpl implements LevelBuilder {
      */
     private List<Interactable> interactables;
 
+    /**
+     * Whether touching static solids are merged when the index is built.
+     */
+    private boolean mergeSolids;
+
     /**
      * The source file for the level.
      */
@@ -96,6 +111,27 @@ public class LevelBuilderImpl implements LevelBuilder {
     private long time;
     private long lives;
 
+    /**
+     * The file entities are written to once SPILL_THRESHOLD are held, created when first needed.
+     */
+    private ChunkSpill spill;
+
+    /**
+     * The batches of entities written to the spill file, in order.
+     */
+    private final List<ChunkSpill.Batch> batches = new ArrayList<>();
+
+    /**
+     * The number of entities written to the spill file.
+     */
+    private int spilled;
+
+    /**
+     * The entity added last. Readers add an entity that goes in several lists with
+     * consecutive calls, which are never split by writing to the spill file.
+     */
+    private Entity last;
+
     /**
      * Creates a new LevelBuilderImpl object.
      * @param file The source file for the level
@@ -112,22 +148,26 @@ public class LevelBuilderImpl implements LevelBuilder {
         this.floorHeight = DEFAULT_FLOOR_HEIGHT;
         this.width = DEFAULT_LEVEL_WIDTH;
         this.height = DEFAULT_LEVEL_HEIGHT;
+        this.mergeSolids = DEFAULT_MERGE_SOLIDS;
     }
 
     @Override
     public LevelBuilder addEnemy(MovingEntity enemy) {
+        beforeAdd(enemy);
         this.movingEntities.add(enemy);
         return this;
     }
 
     @Override
     public LevelBuilder addStaticEntity(Entity staticEntity) {
+        beforeAdd(staticEntity);
         this.staticEntities.add(staticEntity);
         return this;
     }
 
     @Override
     public LevelBuilder addInteractable(Interactable collectable) {
+        beforeAdd(collectable);
         this.interactables.add(collectable);
         return this;
     }
@@ -164,137 +204,175 @@ public class LevelBuilderImpl implements LevelBuilder {
         return this;
     }
 
+    @Override
+    public LevelBuilder setMergeSolids(boolean mergeSolids) {
+        this.mergeSolids = mergeSolids;
+        return this;
+    }
+
     @Override
     public Level build() {
-        return new LevelManager(model, file, height, width, floorHeight, heroX, heroSize,
-                staticEntities, movingEntities, interactables, time, lives);
+        return buildTemplate().instantiate(model);
+    }
+
+    @Override
+    public LevelTemplate buildTemplate() {
+        Map<Integer, ChunkSpill.Record> records = spill == null ? Collections.emptyMap() : spill.gather(batches);
+        batches.clear();
+        return new LevelTemplate(file, height, width, floorHeight, heroX, heroSize, held(), records, spill, spilled,
+                mergeSolids, time, lives);
     }
 
     /**
-     * Reads a json file and generates a Level object from it.
-     * @param file The JSON file to read
-     * @return The corresponding Level object
+     * Writes the held entities to the spill file if there are SPILL_THRESHOLD of them,
+     * unless the entity about to be added is the one added last.
      */
-    @SuppressWarnings("unchecked")
-    public static Level generateFromFile(String file, GameEngine model) {
-
-        LevelBuilder levelBuilder = new LevelBuilderImpl(file, model);
-
-        JSONParser parser = new JSONParser();
-
-        try {
-
-            Reader reader = new FileReader(file);
-
-            JSONObject object = (JSONObject) parser.parse(reader);
-
-            String size = (String) object.get("stickmanSize");
-            JSONObject pos = (JSONObject) object.get("stickmanPos");
-            double heroX = (double) pos.get("x");
-            long li = (long) object.get("lives");
-
-            levelBuilder.setHero(heroX, size);
-            levelBuilder.setLives(li);
-
-            JSONObject levelDimensions = (JSONObject) object.get("levelDimensions");
-
-            double width = (double) levelDimensions.get("width");
-            double height = (double) levelDimensions.get("height");
-            double floorHeight = (double) levelDimensions.get("floorHeight");
-            long ti = (long) levelDimensions.get("time");
-
-            levelBuilder.setDimensions(width, height);
-            levelBuilder.setFloorHeight(floorHeight);
-            levelBuilder.setTime(ti);
-
-            JSONArray platforms = (JSONArray) object.get("platforms");
-
-            Iterator<JSONObject> iterator = (Iterator<JSONObject>) platforms.iterator();
-
-            // Get platforms
-            while (iterator.hasNext()) {
-                JSONObject plat = (JSONObject) iterator.next();
-
-                double x = (double) plat.get("x");
-                double y = (double) plat.get("y");
+    private void beforeAdd(Entity entity) {
+        if (entity != last && staticEntities.size() + movingEntities.size() + interactables.size() >= SPILL_THRESHOLD) {
+            writeHeld();
+        }
+        last = entity;
+    }
 
-                levelBuilder.addStaticEntity(new Platform(x, y));
+    /**
+     * Writes the held entities the spill file can hold to it, as one batch, and lets go of them.
+     */
+    private void writeHeld() {
+        Map<Integer, List<Entity>> chunks = new TreeMap<>();
+        for (Entity entity : held()) {
+            if (ChunkSpill.canStore(entity)) {
+                chunks.computeIfAbsent(RegionStreamer.chunk(entity.getXPos()), c -> new ArrayList<>()).add(entity);
             }
+        }
+        if (chunks.isEmpty()) {
+            return;
+        }
 
-            JSONArray mushrooms = (JSONArray) object.get("mushrooms");
-
-            iterator = (Iterator<JSONObject>) mushrooms.iterator();
-
-            // Get mushrooms
-            while (iterator.hasNext()) {
-                JSONObject mush = (JSONObject) iterator.next();
-
-                double x = (double) mush.get("x");
-                double y = (double) mush.get("y");
+        if (spill == null) {
+            spill = new ChunkSpill();
+        }
+        batches.add(spill.writeBatch(chunks));
+        for (List<Entity> chunk : chunks.values()) {
+            spilled += chunk.size();
+        }
 
-                Mushroom shroom = new Mushroom(x, y);
+        staticEntities.removeIf(ChunkSpill::canStore);
+        movingEntities.removeIf(ChunkSpill::canStore);
+        interactables.removeIf(ChunkSpill::canStore);
+    }
 
-                levelBuilder.addInteractable(shroom);
-                levelBuilder.addStaticEntity(shroom);
+    /**
+     * Gets the held entities in the order they are added to the level, without duplicates.
+     */
+    private List<Entity> held() {
+        List<Entity> entities = new ArrayList<>();
+        Set<Entity> added = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Entity entity : staticEntities) {
+            if (added.add(entity)) {
+                entities.add(entity);
             }
+        }
+        for (Entity entity : movingEntities) {
+            if (added.add(entity)) {
+                entities.add(entity);
+            }
+        }
+        for (Entity entity : interactables) {
+            if (added.add(entity)) {
+                entities.add(entity);
+            }
+        }
+        return entities;
+    }
 
-            // Get enemies
-            JSONArray enemies = (JSONArray) object.get("enemies");
+    /**
+     * Reads a level file (JSON or binary) and generates a Level object from it.
+     * @param file The level file to read
+     * @return The corresponding Level object
+     */
+    public static Level generateFromFile(String file, GameEngine model) {
 
-            iterator = (Iterator<JSONObject>) enemies.iterator();
+        LevelLoadEvent event = LevelLoadEvent.beginIfEnabled();
 
-            // Enemy Strategies
-            EnemyStrategy dumb = new DumbStrategy();
-            EnemyStrategy follow = new FollowStrategy();
+        LevelBuilder levelBuilder = new LevelBuilderImpl(file, model);
 
-            // Get mushrooms
-            while (iterator.hasNext()) {
-                JSONObject enemyJSON = (JSONObject) iterator.next();
+        long parseTime = readFile(file, levelBuilder);
+        if (parseTime < 0) {
+            return null;
+        }
 
-                double x = (double) enemyJSON.get("x");
-                double y = (double) enemyJSON.get("y");
-                String image = (String) enemyJSON.get("path");
-                boolean startLeft = (boolean) enemyJSON.get("startLeft");
+        Level level = levelBuilder.build();
 
-                String strategy = (String) enemyJSON.get("strategy");
+        if (event != null) {
+            event.file = file;
+            event.entities = level.getEntities().size();
+            event.parseTime = parseTime;
+            event.commit();
+        }
 
-                EnemyStrategy strat = null;
+        return level;
+    }
 
-                switch (strategy) {
-                    case "dumb":
-                        strat = dumb;
-                        break;
-                    case "follow":
-                        strat = follow;
-                        break;
-                }
+    /**
+     * Reads a level file (JSON or binary) and generates a LevelTemplate from it, which
+     * can create any number of copies of the level without reading the file again.
+     * @param file The level file to read
+     * @return The corresponding LevelTemplate
+     */
+    public static LevelTemplate templateFromFile(String file) {
 
-                Slime enemy = new Slime(image, x, y, startLeft, strat);
+        LevelLoadEvent event = LevelLoadEvent.beginIfEnabled();
 
-                levelBuilder.addInteractable(enemy);
-                levelBuilder.addEnemy(enemy);
-            }
+        LevelBuilder levelBuilder = new LevelBuilderImpl(file, null);
 
-            JSONObject flagJSON = (JSONObject) object.get("flag");
+        long parseTime = readFile(file, levelBuilder);
+        if (parseTime < 0) {
+            return null;
+        }
 
-            double flagX = (double) flagJSON.get("x");
-            double flagY = (double) flagJSON.get("y");
+        LevelTemplate template = levelBuilder.buildTemplate();
 
-            Flag flag = new Flag(flagX, flagY);
+        if (event != null) {
+            event.file = file;
+            event.entities = template.size();
+            event.parseTime = parseTime;
+            event.commit();
+        }
 
-            levelBuilder.addInteractable(flag);
-            levelBuilder.addStaticEntity(flag);
+        return template;
+    }
 
-            return levelBuilder.build();
+    /**
+     * Reads a level file and adds its contents to a LevelBuilder. Files with the
+     * binary level extension are mapped and read as binary levels, anything else is
+     * streamed as JSON. Malformed JSON levels are reported with the line and column.
+     * @param file The level file to read
+     * @param levelBuilder The builder to add the level to
+     * @return The time spent parsing the file in nanoseconds, or -1 if the file couldn't be read
+     */
+    private static long readFile(String file, LevelBuilder levelBuilder) {
+
+        if (BinaryLevelFile.isBinary(file)) {
+            try {
+                long parseStart = System.nanoTime();
+                BinaryLevelFile.read(file, levelBuilder);
+                return System.nanoTime() - parseStart;
+            } catch (IOException e) {
+                e.printStackTrace();
+                return -1;
+            }
+        }
 
-        } catch (ParseException e) {
-            e.printStackTrace();
+        try (Reader reader = new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8)) {
+            long parseStart = System.nanoTime();
+            new JsonLevelReader(reader, file).read(levelBuilder);
+            return System.nanoTime() - parseStart;
+        } catch (LevelFormatException e) {
+            System.err.println(e.getMessage());
         } catch (IOException e) {
             e.printStackTrace();
-        } catch (ClassCastException e) {
-            e.printStackTrace();
         }
 
-        return null;
+        return -1;
     }
 }
@@ -0,0 +1,54 @@
+package stickman.level;
+
+import java.io.IOException;
+
+/**
+ * Thrown when a level file is malformed or doesn't match the level schema.
+ * Holds where in the file the problem was found.
+ */
+public class LevelFormatException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String file;
+    private final int line;
+    private final int column;
+
+    /**
+     * Creates a new LevelFormatException object.
+     * @param file The level file
+     * @param line The line of the problem, starting at 1
+     * @param column The column of the problem, starting at 1
+     * @param problem A description of the problem
+     */
+    public LevelFormatException(String file, int line, int column, String problem) {
+        super(file + ":" + line + ":" + column + ": " + problem);
+        this.file = file;
+        this.line = line;
+        this.column = column;
+    }
+
+    /**
+     * Gets the level file the problem is in.
+     * @return The file name
+     */
+    public String getFile() {
+        return this.file;
+    }
+
+    /**
+     * Gets the line of the problem.
+     * @return The line, starting at 1
+     */
+    public int getLine() {
+        return this.line;
+    }
+
+    /**
+     * Gets the column of the problem.
+     * @return The column, starting at 1
+     */
+    public int getColumn() {
+        return this.column;
+    }
+}
@@ -0,0 +1,363 @@
+package stickman.level;
+
+import stickman.entity.moving.enemy.DumbStrategy;
+import stickman.entity.moving.enemy.EnemyStrategy;
+import stickman.entity.moving.enemy.FollowStrategy;
+import stickman.entity.moving.enemy.Slime;
+import stickman.entity.moving.player.StickMan;
+import stickman.entity.still.Flag;
+import stickman.entity.still.Mushroom;
+import stickman.entity.still.Platform;
+import stickman.model.GameEngine;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * Generates random levels of any size, either as JSON in the format read by
+ * LevelBuilderImpl.generateFromFile or directly through a LevelBuilder. The same
+ * seed and settings always give the same level.
+ *
+ * Generated levels can always be beaten: platforms sit high enough for even a large
+ * hero to walk underneath, so the floor is a clear path to the flag; no enemy starts
+ * near the hero or the flag; there is always a mushroom next to the start so the
+ * hero can shoot through enemies; and the time limit allows for walking the whole level.
+ */
+public class LevelGenerator {
+
+    /**
+     * The horizontal grid every entity is placed on.
+     */
+    private static final int GRID = 20;
+
+    /**
+     * The width of the enemy-free zones at the start and end of the level.
+     */
+    private static final double SAFE_ZONE = 200;
+
+    /**
+     * The x-coordinate the hero starts at.
+     */
+    private static final double HERO_X = 50;
+
+    /**
+     * The lowest a platform's top edge can be, measured up from the floor. Leaves
+     * a large hero room to walk underneath.
+     */
+    private static final double MIN_PLATFORM_HEIGHT = 100;
+
+    /**
+     * The number of grid rows platforms are spread over, going up from MIN_PLATFORM_HEIGHT.
+     */
+    private static final int PLATFORM_ROWS = 6;
+
+    /**
+     * Extra time given on top of the time needed to walk the level, in seconds.
+     */
+    private static final long SPARE_TIME = 60;
+
+    private final long seed;
+    private int platforms;
+    private int mushrooms;
+    private int dumbSlimes;
+    private int followSlimes;
+    private double width;
+    private double height = 600;
+    private double floorHeight = 400;
+
+    /**
+     * Creates a new LevelGenerator with no entities.
+     * @param seed The seed for the random placement of entities
+     */
+    public LevelGenerator(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Sets the number of platforms in the level.
+     * @param platforms The number of platforms
+     * @return This instance of LevelGenerator
+     */
+    public LevelGenerator setPlatforms(int platforms) {
+        this.platforms = platforms;
+        return this;
+    }
+
+    /**
+     * Sets the number of mushrooms in the level. There is always at least one, next to the start.
+     * @param mushrooms The number of mushrooms
+     * @return This instance of LevelGenerator
+     */
+    public LevelGenerator setMushrooms(int mushrooms) {
+        this.mushrooms = mushrooms;
+        return this;
+    }
+
+    /**
+     * Sets the number of slimes in the level.
+     * @param dumbSlimes The number of slimes that move side to side
+     * @param followSlimes The number of slimes that follow the hero
+     * @return This instance of LevelGenerator
+     */
+    public LevelGenerator setSlimes(int dumbSlimes, int followSlimes) {
+        this.dumbSlimes = dumbSlimes;
+        this.followSlimes = followSlimes;
+        return this;
+    }
+
+    /**
+     * Sets the size of the level. A width of zero (the default) makes the level wider as it gets more entities.
+     * @param width The width of the level
+     * @param height The height of the level
+     * @param floorHeight The height of the floor
+     * @return This instance of LevelGenerator
+     */
+    public LevelGenerator setDimensions(double width, double height, double floorHeight) {
+        if (floorHeight - MIN_PLATFORM_HEIGHT - (PLATFORM_ROWS - 1) * GRID < 0 || floorHeight > height) {
+            throw new IllegalArgumentException("Floor height must be between " + (MIN_PLATFORM_HEIGHT + (PLATFORM_ROWS - 1) * GRID)
+                    + " and the level height, but was " + floorHeight);
+        }
+        this.width = width;
+        this.height = height;
+        this.floorHeight = floorHeight;
+        return this;
+    }
+
+    /**
+     * Gets the width the level will have.
+     * @return The width of the level
+     */
+    public double getWidth() {
+        double total = platforms + mushrooms + dumbSlimes + followSlimes;
+        double w = this.width > 0 ? this.width : total * GRID / 2;
+        // Room for both safe zones plus somewhere to put the entities
+        return Math.max(w, 2 * SAFE_ZONE + 10 * GRID);
+    }
+
+    /**
+     * Generates the level through a LevelBuilder.
+     * @param file The name to give the level
+     * @param model The GameEngine the level is part of
+     * @return The generated level
+     */
+    public Level build(String file, GameEngine model) {
+        LevelBuilder builder = new LevelBuilderImpl(file, model);
+        EnemyStrategy dumb = new DumbStrategy();
+        EnemyStrategy follow = new FollowStrategy();
+
+        Sink sink = new Sink() {
+            @Override
+            public void header(double width, double height, double floorHeight, long time) {
+                builder.setDimensions(width, height).setFloorHeight(floorHeight).setHero(HERO_X, "normal")
+                        .setTime(time).setLives(5);
+            }
+
+            @Override
+            public void platform(double x, double y) {
+                builder.addStaticEntity(new Platform(x, y));
+            }
+
+            @Override
+            public void mushroom(double x, double y) {
+                Mushroom mushroom = new Mushroom(x, y);
+                builder.addInteractable(mushroom);
+                builder.addStaticEntity(mushroom);
+            }
+
+            @Override
+            public void enemy(double x, double y, boolean startLeft, boolean follows) {
+                Slime slime = new Slime(follows ? "slimeGa.png" : "slimeBa.png", x, y, startLeft, follows ? follow : dumb);
+                builder.addInteractable(slime);
+                builder.addEnemy(slime);
+            }
+
+            @Override
+            public void flag(double x, double y) {
+                Flag flag = new Flag(x, y);
+                builder.addInteractable(flag);
+                builder.addStaticEntity(flag);
+            }
+        };
+
+        try {
+            generate(sink);
+        } catch (IOException e) {
+            // Only the JSON sink does any I/O
+            throw new UncheckedIOException(e);
+        }
+
+        return builder.build();
+    }
+
+    /**
+     * Writes the level as JSON, one entity at a time, so levels of any size can be written.
+     * @param file The file to write
+     * @throws IOException If the file can't be written
+     */
+    public void write(Path file) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+            write(writer);
+        }
+    }
+
+    /**
+     * Writes the level as JSON, one entity at a time.
+     * @param out Where to write the level
+     * @throws IOException If the level can't be written
+     */
+    public void write(Writer out) throws IOException {
+        JsonSink sink = new JsonSink(out);
+        generate(sink);
+        sink.finish();
+    }
+
+    /**
+     * Places every entity in the level, passing each one to the sink in JSON array order.
+     */
+    private void generate(Sink sink) throws IOException {
+        Random random = new Random(seed);
+        double levelWidth = getWidth();
+        // Walking the level at full speed takes width / speed ticks, at 120 ticks a second
+        long time = (long) Math.ceil(levelWidth / StickMan.HORIZONTAL_SPEED / 120) + SPARE_TIME;
+
+        sink.header(levelWidth, height, floorHeight, time);
+
+        int columns = (int) ((levelWidth - 2 * SAFE_ZONE) / GRID);
+
+        for (int i = 0; i < platforms; i++) {
+            double x = SAFE_ZONE + random.nextInt(columns) * GRID;
+            double y = floorHeight - MIN_PLATFORM_HEIGHT - random.nextInt(PLATFORM_ROWS) * GRID;
+            sink.platform(x, y);
+        }
+
+        sink.startMushrooms();
+        sink.mushroom(HERO_X + 4 * GRID, floorHeight - 20);
+        for (int i = 1; i < mushrooms; i++) {
+            sink.mushroom(SAFE_ZONE + random.nextInt(columns) * GRID, floorHeight - 20);
+        }
+
+        sink.startEnemies();
+        for (int i = 0; i < dumbSlimes + followSlimes; i++) {
+            double x = SAFE_ZONE + random.nextInt(columns) * GRID;
+            sink.enemy(x, floorHeight - 30, random.nextBoolean(), i >= dumbSlimes);
+        }
+
+        sink.flag(levelWidth - SAFE_ZONE / 2, floorHeight - 30);
+    }
+
+    /**
+     * Receives the generated entities.
+     */
+    private interface Sink {
+
+        void header(double width, double height, double floorHeight, long time) throws IOException;
+
+        void platform(double x, double y) throws IOException;
+
+        default void startMushrooms() throws IOException {
+        }
+
+        void mushroom(double x, double y) throws IOException;
+
+        default void startEnemies() throws IOException {
+        }
+
+        void enemy(double x, double y, boolean startLeft, boolean follows) throws IOException;
+
+        void flag(double x, double y) throws IOException;
+    }
+
+    /**
+     * Writes the generated entities as JSON.
+     */
+    private static class JsonSink implements Sink {
+
+        private final Writer out;
+
+        /**
+         * Whether the next array element is the first in its array.
+         */
+        private boolean first = true;
+
+        JsonSink(Writer out) {
+            this.out = out;
+        }
+
+        @Override
+        public void header(double width, double height, double floorHeight, long time) throws IOException {
+            out.write("{\n");
+            out.write("  \"stickmanSize\": \"normal\",\n");
+            out.write("  \"stickmanPos\": {\"x\": " + number(HERO_X) + "},\n");
+            out.write("  \"lives\": 5,\n");
+            out.write("  \"levelDimensions\": {\"width\": " + number(width) + ", \"height\": " + number(height)
+                    + ", \"floorHeight\": " + number(floorHeight) + ", \"time\": " + time + "},\n");
+            out.write("  \"platforms\": [");
+        }
+
+        @Override
+        public void platform(double x, double y) throws IOException {
+            element("{\"x\": " + number(x) + ", \"y\": " + number(y) + "}");
+        }
+
+        @Override
+        public void startMushrooms() throws IOException {
+            endArray();
+            out.write("  \"mushrooms\": [");
+        }
+
+        @Override
+        public void mushroom(double x, double y) throws IOException {
+            element("{\"x\": " + number(x) + ", \"y\": " + number(y) + "}");
+        }
+
+        @Override
+        public void startEnemies() throws IOException {
+            endArray();
+            out.write("  \"enemies\": [");
+        }
+
+        @Override
+        public void enemy(double x, double y, boolean startLeft, boolean follows) throws IOException {
+            element("{\"x\": " + number(x) + ", \"y\": " + number(y)
+                    + ", \"path\": \"" + (follows ? "slimeGa.png" : "slimeBa.png") + "\", \"startLeft\": " + startLeft
+                    + ", \"strategy\": \"" + (follows ? "follow" : "dumb") + "\"}");
+        }
+
+        @Override
+        public void flag(double x, double y) throws IOException {
+            endArray();
+            out.write("  \"flag\": {\"x\": " + number(x) + ", \"y\": " + number(y) + "}\n");
+        }
+
+        void finish() throws IOException {
+            out.write("}\n");
+            out.flush();
+        }
+
+        private void element(String json) throws IOException {
+            out.write(first ? "\n    " : ",\n    ");
+            out.write(json);
+            first = false;
+        }
+
+        private void endArray() throws IOException {
+            out.write(first ? "],\n" : "\n  ],\n");
+            first = true;
+        }
+
+        /**
+         * Formats a number so the level parser reads it back as a double.
+         */
+        private static String number(double value) {
+            if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+                return (long) value + ".0";
+            }
+            return Double.toString(value);
+        }
+    }
+}
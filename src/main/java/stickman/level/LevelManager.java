@@ -7,16 +7,18 @@ import stickman.entity.moving.other.Bullet;
 import stickman.entity.moving.other.Projectile;
 import stickman.entity.moving.player.Controllable;
 import stickman.entity.moving.player.StickMan;
-import stickman.entity.still.Flag;
-import stickman.entity.still.Mushroom;
 import stickman.entity.still.Platform;
 import stickman.entity.still.Win;
 import stickman.model.GameEngine;
+import stickman.perf.Phase;
+import stickman.perf.TickEvent;
+import stickman.perf.TickProfiler;
 
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Set;
 
 /**
  * Implementation of the Level interface. Manages the running of
@@ -30,24 +32,60 @@ public class LevelManager implements Level {
     private Controllable hero;
 
     /**
-     * A list of all the entities in the level.
+     * The store holding all the entities in the level.
      */
-    private List<Entity> entities;
+    private EntityStore store;
 
     /**
-     * A list of all the moving entities in the level.
+     * All the entities in the level.
      */
-    private List<MovingEntity> movingEntities;
+    private EntityStore.View<Entity> entities;
 
     /**
-     * A list of all the entities that can interact with the player.
+     * All the moving entities in the level.
      */
-    private List<Interactable> interactables;
+    private EntityStore.View<MovingEntity> movingEntities;
 
     /**
-     * A list of all the projectiles (bullets) in the level.
+     * All the entities that can interact with the player.
      */
-    private List<Projectile> projectiles;
+    private EntityStore.View<Interactable> interactables;
+
+    /**
+     * All the projectiles (bullets) in the level.
+     */
+    private EntityStore.View<Projectile> projectiles;
+
+    /**
+     * Puts entities far from the hero to sleep, and wakes them when the hero comes back.
+     */
+    private ActivationRegion activation;
+
+    /**
+     * Unloads the parts of the level far from the hero, and loads them when the hero comes back.
+     */
+    private RegionStreamer streamer;
+
+    /**
+     * Index of the solid entities that never move, in the loaded chunks.
+     */
+    private ChunkedSolidIndex staticSolids;
+
+    /**
+     * Spatial index of the solid entities that can move.
+     */
+    private SpatialHash movingSolids;
+
+    /**
+     * All the solid entities in the level, static and moving.
+     */
+    private SolidIndex solids;
+
+    /**
+     * Scratch list of the moving entities bullets can hit (everything but the hero).
+     * Refilled every tick so the tick doesn't allocate.
+     */
+    private final List<MovingEntity> targets = new ArrayList<>();
 
     /**
      * The height of the level.
@@ -94,47 +132,105 @@ public class LevelManager implements Level {
      * @param heroX The starting x of the hero
      * @param heroSize The size of the hero
      * @param entities The list of entities in the level
+     * @param staticSolids The index of the solid entities that never move, which the level takes over
      * @param movingEntities The list of moving entities in the level
      * @param interactables The list of entities that can interact with the hero in the level
      * @param time The time this level will count down from
      * @param lives The lives given to hero for the current level
      */
     public LevelManager(GameEngine model, String filename, double height, double width, double floorHeight, double heroX, String heroSize,
-                        List<Entity> entities, List<MovingEntity> movingEntities, List<Interactable> interactables,
-                        long time, long lives) {
+                        List<Entity> entities, ChunkedSolidIndex staticSolids, List<MovingEntity> movingEntities,
+                        List<Interactable> interactables, long time, long lives) {
         this.model = model;
         this.filename = filename;
         this.height = height;
         this.width = width;
         this.floorHeight = floorHeight;
-        this.entities = entities;
-        this.movingEntities = movingEntities;
-        this.interactables = interactables;
         this.time = time;
         this.lives = lives;
 
         this.score = time;
 
-        this.projectiles = new ArrayList<>();
-
         this.hs = heroSize;
 
+        this.store = new EntityStore();
+        this.entities = this.store.all();
+        this.movingEntities = this.store.moving();
+        this.interactables = this.store.interactables();
+        this.projectiles = this.store.projectiles();
+        this.activation = new ActivationRegion(this.store);
+
+        this.staticSolids = staticSolids;
+        this.movingSolids = new SpatialHash();
+        this.solids = new CompositeSolidIndex(this.staticSolids, this.movingSolids);
+        this.streamer = new RegionStreamer(this.store, this.movingSolids, this.staticSolids);
+
+        // Add every entity once, in the order given (the same entity may be in several lists)
+        Set<Entity> added = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Entity entity : entities) {
+            if (added.add(entity)) {
+                this.store.add(entity);
+                if (entity.isSolid() && entity instanceof MovingEntity) {
+                    this.movingSolids.insert(entity);
+                }
+            }
+        }
+        for (MovingEntity entity : movingEntities) {
+            if (added.add(entity)) {
+                this.addEntity(entity);
+            }
+        }
+        for (Interactable entity : interactables) {
+            if (added.add(entity)) {
+                this.addEntity(entity);
+            }
+        }
+
         // Create new hero
         this.hero = new StickMan(heroX, floorHeight, heroSize, this);
-        this.movingEntities.add(this.hero);
+        this.store.add(this.hero);
 
-        // Ensure entities has all entities (including moving ones)
-        this.entities.addAll(movingEntities);
-        this.entities = new ArrayList<>(new HashSet<>(entities));
+        // Unload everything far from where the hero starts
+        this.streamer.update(this.hero);
 
         this.active = true;
     }
 
+    /**
+     * Adds part of the level that is far from the hero, to be loaded when the hero comes near.
+     * @param chunk The index of the chunk the entities are in
+     * @param prototypes The entities in the chunk kept in memory, or null if there are none
+     * @param copied Whether each prototype must be copied (rather than shared) when loaded
+     * @param records The records in the template's spill file holding the rest of the chunk
+     */
+    void deferChunk(int chunk, Entity[] prototypes, boolean[] copied, ChunkSpill.Record[] records) {
+        this.streamer.defer(chunk, prototypes, copied, records);
+    }
+
     @Override
     public List<Entity> getEntities() {
         return this.entities;
     }
 
+    @Override
+    public void addEntity(Entity entity) {
+        this.store.add(entity);
+        // Solids added after the level is built aren't in the static index
+        if (entity.isSolid()) {
+            this.movingSolids.insert(entity);
+        }
+    }
+
+    @Override
+    public SolidIndex getSolids() {
+        return this.solids;
+    }
+
+    @Override
+    public SolidIndex getStaticSolids() {
+        return this.staticSolids;
+    }
+
     @Override
     public double getHeight() {
         return this.height;
@@ -154,14 +250,33 @@ public class LevelManager implements Level {
             return;
         }
 
-        for (MovingEntity entity : this.movingEntities) {
-            entity.tick(this.entities, this.hero.getXPos(), this.floorHeight);
+        TickEvent event = TickEvent.beginIfEnabled();
+        long begin = TickProfiler.start(event != null);
+
+        // Only the entities near the hero are loaded, and only those nearer still are updated
+        this.streamer.update(this.hero);
+        this.activation.update(this.hero);
+
+        for (int i = 0; i < this.movingEntities.size(); i++) {
+            MovingEntity entity = this.movingEntities.get(i);
+            // Solid entities are re-indexed around their move
+            boolean solid = entity.isSolid();
+            if (solid) {
+                this.movingSolids.remove(entity);
+            }
+            entity.tick(this.solids, this.hero.getXPos(), this.floorHeight);
+            if (solid) {
+                this.movingSolids.insert(entity);
+            }
         }
+        long moved = TickProfiler.lap(Phase.MOVE, begin);
 
         this.manageCollisions();
+        long collided = TickProfiler.lap(Phase.COLLISIONS, moved);
 
         // Remove inactive entities
         this.clearOutInactive();
+        long cleaned = TickProfiler.lap(Phase.CLEANUP, collided);
 
         //check time and manage scores
         if(tickCount % 120 == 0){
@@ -177,22 +292,46 @@ public class LevelManager implements Level {
                 this.score--;
             }
         }
+        long scored = TickProfiler.lap(Phase.SCORE, cleaned);
+        TickProfiler.lap(Phase.TICK, begin);
+
+        if (event != null) {
+            event.level = this.filename;
+            event.entities = this.entities.size();
+            event.movingEntities = this.movingEntities.size();
+            event.projectiles = this.projectiles.size();
+            event.move = moved - begin;
+            event.collisions = collided - moved;
+            event.cleanup = cleaned - collided;
+            event.score = scored - cleaned;
+            event.commit();
+        }
     }
 
     /**
      * Removes inactive entities from all the lists.
      */
     private void clearOutInactive() {
-        for(Entity en : this.entities){//updates score when enemy is killed
-            if(en instanceof Slime && !en.isActive()){
-                this.score += 100;
-                break;
+        boolean killed = false;
+
+        // Walk backwards, as removal moves the last entity into the freed position
+        for (int i = this.entities.size() - 1; i >= 0; i--) {
+            Entity en = this.entities.get(i);
+            if (en.isActive()) {
+                continue;
+            }
+            if (en instanceof Slime) { //updates score when enemy is killed
+                killed = true;
             }
+            if (en.isSolid()) {
+                this.movingSolids.remove(en);
+            }
+            this.store.remove(this.entities.handle(i));
+        }
+
+        if (killed) {
+            this.score += 100;
         }
-        this.entities.removeIf(x -> !x.isActive());
-        this.movingEntities.removeIf(x -> !this.entities.contains(x));
-        this.interactables.removeIf(x -> !this.entities.contains(x));
-        this.projectiles.removeIf(x -> !this.entities.contains(x));
     }
 
     /**
@@ -200,25 +339,38 @@ public class LevelManager implements Level {
      */
     private void manageCollisions() {
 
-        if (!entities.contains(this.hero)) {
+        // An inactive hero has already been cleared out of the level
+        if (!this.hero.isActive()) {
             return;
         }
 
         // Collision between hero and other entity
-        for (Interactable interactable : this.interactables) {
+        for (int i = 0; i < this.interactables.size(); i++) {
+            Interactable interactable = this.interactables.get(i);
             if (interactable.checkCollide(hero)) {
                 interactable.interact(hero);
             }
         }
 
+        if (this.projectiles.isEmpty()) {
+            return;
+        }
+
         // Collision between bullet and moving entity (not hero)
-        for (Projectile projectile : this.projectiles) {
-            projectile.movingCollision(this.movingEntities.stream().filter(x -> x != hero).collect(Collectors.toList()));
+        this.targets.clear();
+        for (int i = 0; i < this.movingEntities.size(); i++) {
+            MovingEntity entity = this.movingEntities.get(i);
+            if (entity != this.hero) {
+                this.targets.add(entity);
+            }
+        }
+        for (int i = 0; i < this.projectiles.size(); i++) {
+            this.projectiles.get(i).movingCollision(this.targets);
         }
 
         // Collision between bullet and other entity
-        for (Projectile projectile : this.projectiles) {
-            projectile.staticCollision(this.entities.stream().filter(x -> x != hero).collect(Collectors.toList()));
+        for (int i = 0; i < this.projectiles.size(); i++) {
+            this.projectiles.get(i).staticCollision(this.solids);
         }
     }
 
@@ -296,9 +448,7 @@ public class LevelManager implements Level {
 
         Projectile bullet = new Bullet(x, this.hero.getYPos() + (2 * this.hero.getWidth() / 3), this.hero.isLeftFacing());
 
-        this.entities.add(bullet);
-        this.movingEntities.add(bullet);
-        this.projectiles.add(bullet);
+        this.addEntity(bullet);
     }
 
     @Override
@@ -376,47 +526,18 @@ public class LevelManager implements Level {
     public Level copy(){
 
         List<Entity> e = new ArrayList<>();
-        List<MovingEntity> me = new ArrayList<>();
-        List<Interactable> ie = new ArrayList<>();
         for(Entity entity : this.entities){
             if(!(entity instanceof StickMan)){ //Stickman not added
                 e.add(entity.copy());
             }
         }
 
-        //slime copy
-        for(Entity a : e){
-            if(a instanceof Slime){
-               me.add((MovingEntity) a);
-               ie.add((Interactable) a);
-            }
-        }
+        //level copy (the store sorts slimes, flags, mushrooms and bullets into their views)
+        LevelManager l = new LevelManager(this.model, this.filename, this.height, this.width, this.floorHeight, this.getHeroX(),
+                this.hs, e, this.staticSolids.copy(), new ArrayList<>(), new ArrayList<>(), this.time, this.lives);
 
-        //flag copy
-        for(Entity a : e){
-            if(a instanceof Flag){
-                ie.add((Interactable) a);
-            }
-        }
-
-        //mushroom copy
-        for(Entity a : e){
-            if(a instanceof Mushroom){
-                ie.add((Interactable) a);
-            }
-        }
-
-        //level copy
-        Level l = new LevelManager(this.model, this.filename, this.height, this.width, this.floorHeight, this.getHeroX(),
-                this.hs, e, me, ie, this.time, this.lives);
-
-        //bullet copy
-        for(Entity a : e){
-            if(a instanceof Bullet){
-                l.getProj().add((Projectile) a);
-                l.getMoveEnt().add((MovingEntity) a);
-            }
-        }
+        //the unloaded parts of the level are shared, as they are never changed
+        l.streamer.inherit(this.streamer);
 
         //set score
         l.setScore(this.score);
@@ -0,0 +1,262 @@
+package stickman.level;
+
+import stickman.entity.Entity;
+import stickman.entity.Interactable;
+import stickman.entity.moving.MovingEntity;
+import stickman.model.GameEngine;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * An immutable, already parsed level that creates fresh Level objects on demand.
+ * Only the chunks near the hero's start are kept in memory, as prototypes: entities
+ * with state of their own (moving and interactable entities) are copied for each new
+ * level, while the rest (such as Platform) never change and are shared, along with
+ * the index of their static solids. Every other chunk is written to a ChunkSpill file
+ * when the template is built, and each level reads it back (through RegionStreamer)
+ * when its hero gets near, so a template holds one small record per far chunk rather
+ * than the entities in it. Entities the spill file can't hold are kept as prototypes
+ * whichever chunk they are in.
+ */
+public class LevelTemplate {
+
+    private final String file;
+    private final double height;
+    private final double width;
+    private final double floorHeight;
+    private final double heroX;
+    private final String heroSize;
+    private final long time;
+    private final long lives;
+
+    /**
+     * The prototype entities, in the order they are added to each level.
+     */
+    private final List<Entity> entities;
+
+    /**
+     * Whether each prototype must be copied for a new level (rather than shared).
+     */
+    private final boolean[] copied;
+
+    /**
+     * The index of the chunk each prototype starts in.
+     */
+    private final int[] chunks;
+
+    /**
+     * The prototypes (and whether each is copied) and records in each chunk, by chunk index.
+     */
+    private final TreeMap<Integer, Chunk> chunkPrototypes = new TreeMap<>();
+
+    /**
+     * The index of the static solids among the prototypes, shared by every level.
+     */
+    private final ChunkedSolidIndex staticSolids;
+
+    /**
+     * The number of entities in the level, not counting the hero.
+     */
+    private final int size;
+
+    /**
+     * Creates a new LevelTemplate object, writing the entities far from the hero's start
+     * to the spill file and reading back any near it that were written while the level
+     * was read.
+     * @param file The file the level is based off of
+     * @param height The height of the level
+     * @param width The width of the level
+     * @param floorHeight The height of the floor
+     * @param heroX The starting x of the hero
+     * @param heroSize The size of the hero
+     * @param entities The entities kept in memory, in the order they are added to each level
+     * @param records The record of the entities already written to the spill file in each chunk, by chunk index
+     * @param spill The spill file the records are in, or null if none have been written
+     * @param spilled The number of entities already written to the spill file
+     * @param mergeSolids Whether touching static solids are merged for collisions
+     * @param time The time the level will count down from
+     * @param lives The lives given to the hero for the level
+     */
+    LevelTemplate(String file, double height, double width, double floorHeight, double heroX, String heroSize,
+                  List<Entity> entities, Map<Integer, ChunkSpill.Record> records, ChunkSpill spill,
+                  int spilled, boolean mergeSolids, long time, long lives) {
+        this.file = file;
+        this.height = height;
+        this.width = width;
+        this.floorHeight = floorHeight;
+        this.heroX = heroX;
+        this.heroSize = heroSize;
+        this.time = time;
+        this.lives = lives;
+        this.size = spilled + entities.size();
+
+        int from = RegionStreamer.chunk(heroX - RegionStreamer.LOAD_DISTANCE);
+        int to = RegionStreamer.chunk(heroX + RegionStreamer.LOAD_DISTANCE);
+
+        // Every level needs the chunks near the start straight away, so they stay in memory
+        List<Entity> prototypes = new ArrayList<>();
+        Map<Integer, List<ChunkSpill.Record>> farRecords = new TreeMap<>();
+        for (Map.Entry<Integer, ChunkSpill.Record> entry : records.entrySet()) {
+            if (entry.getKey() >= from && entry.getKey() <= to) {
+                prototypes.addAll(read(new ChunkSpill.Record[] {entry.getValue()}));
+                entry.getValue().release();
+            } else {
+                List<ChunkSpill.Record> chunk = new ArrayList<>(2);
+                chunk.add(entry.getValue());
+                farRecords.put(entry.getKey(), chunk);
+            }
+        }
+
+        Map<Integer, List<Entity>> far = new TreeMap<>();
+        for (Entity entity : entities) {
+            int chunk = RegionStreamer.chunk(entity.getXPos());
+            if ((chunk < from || chunk > to) && ChunkSpill.canStore(entity)) {
+                far.computeIfAbsent(chunk, c -> new ArrayList<>()).add(entity);
+            } else {
+                prototypes.add(entity);
+            }
+        }
+
+        if (!far.isEmpty() && spill == null) {
+            spill = new ChunkSpill();
+        }
+        for (Map.Entry<Integer, List<Entity>> group : far.entrySet()) {
+            farRecords.computeIfAbsent(group.getKey(), c -> new ArrayList<>()).add(spill.write(group.getValue()));
+        }
+
+        this.entities = Collections.unmodifiableList(prototypes);
+        this.staticSolids = ChunkedSolidIndex.of(this.entities, mergeSolids);
+
+        this.copied = new boolean[this.entities.size()];
+        this.chunks = new int[this.entities.size()];
+        Map<Integer, List<Integer>> members = new TreeMap<>();
+        for (int i = 0; i < copied.length; i++) {
+            Entity entity = this.entities.get(i);
+            copied[i] = entity instanceof MovingEntity || entity instanceof Interactable;
+            chunks[i] = RegionStreamer.chunk(entity.getXPos());
+            members.computeIfAbsent(chunks[i], c -> new ArrayList<>()).add(i);
+        }
+
+        for (Map.Entry<Integer, List<Integer>> entry : members.entrySet()) {
+            List<Integer> indexes = entry.getValue();
+            Chunk chunk = new Chunk();
+            chunk.prototypes = new Entity[indexes.size()];
+            chunk.copied = new boolean[indexes.size()];
+            for (int i = 0; i < indexes.size(); i++) {
+                chunk.prototypes[i] = this.entities.get(indexes.get(i));
+                chunk.copied[i] = copied[indexes.get(i)];
+            }
+            chunkPrototypes.put(entry.getKey(), chunk);
+        }
+        for (Map.Entry<Integer, List<ChunkSpill.Record>> entry : farRecords.entrySet()) {
+            Chunk chunk = chunkPrototypes.computeIfAbsent(entry.getKey(), c -> new Chunk());
+            chunk.records = entry.getValue().toArray(new ChunkSpill.Record[0]);
+        }
+    }
+
+    /**
+     * Creates a new copy of the level, as it is at the start.
+     * @param model The GameEngine the level is part of
+     * @return The new Level object
+     */
+    public Level instantiate(GameEngine model) {
+        return instantiate(model, heroX);
+    }
+
+    /**
+     * Creates a new copy of the level with the hero at a different x-coordinate, and the
+     * chunks around it loaded. Chunks there that were written to the spill file are read
+     * before this returns, so it is meant for one-off swaps such as reloading a level.
+     * @param model The GameEngine the level is part of
+     * @param heroX The starting x of the hero
+     * @return The new Level object
+     */
+    public Level instantiate(GameEngine model, double heroX) {
+        int from = RegionStreamer.chunk(heroX - RegionStreamer.LOAD_DISTANCE);
+        int to = RegionStreamer.chunk(heroX + RegionStreamer.LOAD_DISTANCE);
+
+        List<Entity> levelEntities = new ArrayList<>();
+        for (int i = 0; i < copied.length; i++) {
+            if (chunks[i] >= from && chunks[i] <= to) {
+                Entity entity = entities.get(i);
+                levelEntities.add(copied[i] ? entity.copy() : entity);
+            }
+        }
+
+        ChunkedSolidIndex levelSolids = staticSolids.copy();
+        levelSolids.removeOutside(from, to);
+        for (Map.Entry<Integer, Chunk> entry : chunkPrototypes.subMap(from, true, to, true).entrySet()) {
+            // Only if the hero doesn't start where the level says
+            if (entry.getValue().records.length > 0) {
+                List<Entity> read = read(entry.getValue().records);
+                levelSolids.put(entry.getKey(), levelSolids.build(read));
+                levelEntities.addAll(read);
+            }
+        }
+
+        // The level's store sorts the entities into moving entities and interactables
+        LevelManager level = new LevelManager(model, file, height, width, floorHeight, heroX, heroSize,
+                levelEntities, levelSolids, Collections.emptyList(), Collections.emptyList(), time, lives);
+
+        for (Map.Entry<Integer, Chunk> entry : chunkPrototypes.headMap(from, false).entrySet()) {
+            Chunk chunk = entry.getValue();
+            level.deferChunk(entry.getKey(), chunk.prototypes, chunk.copied, chunk.records);
+        }
+        for (Map.Entry<Integer, Chunk> entry : chunkPrototypes.tailMap(to, false).entrySet()) {
+            Chunk chunk = entry.getValue();
+            level.deferChunk(entry.getKey(), chunk.prototypes, chunk.copied, chunk.records);
+        }
+
+        return level;
+    }
+
+    /**
+     * Gets the name of the file the level is from.
+     * @return The file name
+     */
+    public String getSource() {
+        return this.file;
+    }
+
+    /**
+     * Gets the width of the level.
+     * @return The width of the level
+     */
+    public double getWidth() {
+        return this.width;
+    }
+
+    /**
+     * Gets the number of entities in the level, not counting the hero.
+     * @return The number of entities
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Reads the entities written to some records of the spill file, waiting for them.
+     */
+    private static List<Entity> read(ChunkSpill.Record[] records) {
+        return ChunkSpill.await(ChunkSpill.submit(() -> {
+            List<Entity> entities = new ArrayList<>();
+            for (ChunkSpill.Record record : records) {
+                record.read(entities);
+            }
+            return entities;
+        }));
+    }
+
+    /**
+     * The prototypes and records in one chunk.
+     */
+    private static class Chunk {
+        private Entity[] prototypes;
+        private boolean[] copied;
+        private ChunkSpill.Record[] records = new ChunkSpill.Record[0];
+    }
+}
@@ -0,0 +1,435 @@
+package stickman.level;
+
+import stickman.entity.Entity;
+import stickman.entity.moving.MovingEntity;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Future;
+
+/**
+ * Splits a level into chunks CHUNK_WIDTH wide and keeps only the chunks within
+ * LOAD_DISTANCE of the hero in the EntityStore, so the tick and the views only
+ * see those. When the hero moves far enough that a chunk falls outside
+ * LOAD_DISTANCE + UNLOAD_MARGIN, the entities in it are removed and written to a
+ * ChunkSpill file in the background, and they are read back when the hero comes
+ * near again. A chunk that was never loaded is read from the records the level
+ * template wrote when it was built, which every level made from the template shares.
+ * Static solids are indexed chunk by chunk in a ChunkedSolidIndex: a chunk's index is
+ * dropped when it is unloaded and rebuilt from its entities, on the spill thread,
+ * when it is loaded. So a level only holds the loaded part of the world, however wide
+ * it is, apart from one small record per unloaded chunk. Chunks within PREFETCH_DISTANCE beyond
+ * the loaded ones are read (or copied) on the spill thread ahead of time, so a
+ * chunk coming into range only has to add entities that are already made. The
+ * tick never waits for the spill thread: a chunk that comes into range before it
+ * has been read is added on the first tick after the read finishes. It comes into
+ * range about LOAD_DISTANCE from the hero, far beyond where ActivationRegion wakes
+ * entities, so nothing near the hero notices the wait.
+ *
+ * GameWindow keeps the hero on screen and the screen is much narrower than
+ * LOAD_DISTANCE, so every chunk in the viewport is always loaded. Entities the
+ * spill file can't hold (the hero, bullets, win/lose banners) are never unloaded;
+ * none of them are static solids.
+ */
+class RegionStreamer {
+
+    /**
+     * The width of each chunk.
+     */
+    static final double CHUNK_WIDTH = 1024;
+
+    /**
+     * How close (horizontally) to the hero a chunk must be to be loaded.
+     */
+    static final double LOAD_DISTANCE = 2048;
+
+    /**
+     * How much further than LOAD_DISTANCE a chunk must be to be unloaded.
+     */
+    static final double UNLOAD_MARGIN = 512;
+
+    /**
+     * How much further than LOAD_DISTANCE unloaded chunks start being read in the background.
+     */
+    static final double PREFETCH_DISTANCE = CHUNK_WIDTH;
+
+    /**
+     * The store holding the loaded entities.
+     */
+    private final EntityStore store;
+
+    /**
+     * The index the loaded solid moving entities are in.
+     */
+    private final SpatialHash movingSolids;
+
+    /**
+     * The index the static solids of the loaded chunks are in.
+     */
+    private final ChunkedSolidIndex staticSolids;
+
+    /**
+     * The chunks that aren't loaded and have entities, by chunk index.
+     */
+    private final TreeMap<Integer, Chunk> unloaded = new TreeMap<>();
+
+    /**
+     * The range of chunk indexes that are loaded. Everything is loaded to begin with.
+     */
+    private int loadedFrom = Integer.MIN_VALUE;
+    private int loadedTo = Integer.MAX_VALUE;
+
+    /**
+     * The range of chunk indexes being read ahead of the hero, including the loaded ones.
+     */
+    private int prefetchFrom = Integer.MIN_VALUE;
+    private int prefetchTo = Integer.MAX_VALUE;
+
+    /**
+     * The unloaded chunks being read ahead of the hero, outside the loaded range.
+     */
+    private final List<Chunk> prefetching = new ArrayList<>();
+
+    /**
+     * The unloaded chunks in the loaded range, being read to be added once they are.
+     */
+    private final List<Chunk> arriving = new ArrayList<>();
+
+    /**
+     * The file this level writes unloaded chunks to, created when first needed.
+     */
+    private ChunkSpill spill;
+
+    /**
+     * Creates a new RegionStreamer object.
+     * @param store The store holding the entities
+     * @param movingSolids The index of the solid moving entities
+     * @param staticSolids The index of the static solids in the loaded chunks
+     */
+    RegionStreamer(EntityStore store, SpatialHash movingSolids, ChunkedSolidIndex staticSolids) {
+        this.store = store;
+        this.movingSolids = movingSolids;
+        this.staticSolids = staticSolids;
+    }
+
+    /**
+     * Converts an x-coordinate into the index of the chunk containing it.
+     * @param x The x-coordinate
+     * @return The chunk index
+     */
+    static int chunk(double x) {
+        return (int) Math.floor(x / CHUNK_WIDTH);
+    }
+
+    /**
+     * Gets the number of chunks that have entities and aren't loaded.
+     * @return The number of unloaded chunks
+     */
+    int unloadedChunks() {
+        return this.unloaded.size();
+    }
+
+    /**
+     * Unloads the chunks the hero has moved away from, starts loading the ones it has
+     * moved towards, and adds those that have finished loading. Does nothing (and doesn't
+     * allocate) while the hero stays within the current chunks and none are loading.
+     * @param hero The entity the loaded chunks are centred on, which is never unloaded
+     */
+    void update(Entity hero) {
+        double heroX = hero.getXPos();
+        int from = chunk(heroX - LOAD_DISTANCE);
+        int to = chunk(heroX + LOAD_DISTANCE);
+
+        if (loadedFrom > from || loadedTo < to
+                || loadedFrom < chunk(heroX - LOAD_DISTANCE - UNLOAD_MARGIN)
+                || loadedTo > chunk(heroX + LOAD_DISTANCE + UNLOAD_MARGIN)) {
+            load(from, to, hero);
+        }
+
+        int aheadFrom = chunk(heroX - LOAD_DISTANCE - PREFETCH_DISTANCE);
+        int aheadTo = chunk(heroX + LOAD_DISTANCE + PREFETCH_DISTANCE);
+        if (aheadFrom != prefetchFrom || aheadTo != prefetchTo) {
+            prefetch(aheadFrom, aheadTo);
+        }
+
+        if (!arriving.isEmpty()) {
+            arrive();
+        }
+    }
+
+    /**
+     * Changes the loaded range, unloading the chunks outside it and starting to load the
+     * unloaded chunks inside it. Chunks that leave the range before they arrive go back
+     * to being read ahead.
+     */
+    private void load(int from, int to, Entity hero) {
+        unloadOutside(from, to, hero);
+
+        this.loadedFrom = from;
+        this.loadedTo = to;
+
+        for (int i = arriving.size() - 1; i >= 0; i--) {
+            Chunk chunk = arriving.get(i);
+            if (chunk.index < from || chunk.index > to) {
+                arriving.remove(i);
+                prefetching.add(chunk);
+            }
+        }
+        for (Chunk chunk : unloaded.subMap(from, true, to, true).values()) {
+            if (chunk.loading == null) {
+                chunk.prefetch(staticSolids);
+                arriving.add(chunk);
+            } else if (prefetching.remove(chunk)) {
+                arriving.add(chunk);
+            }
+        }
+    }
+
+    /**
+     * Adds the entities of the chunks in the loaded range that have finished loading.
+     */
+    private void arrive() {
+        for (int i = 0; i < arriving.size(); i++) {
+            Chunk chunk = arriving.get(i);
+            if (chunk.loading.isDone()) {
+                arriving.remove(i--);
+                unloaded.remove(chunk.index);
+                Contents contents = chunk.take();
+                staticSolids.put(chunk.index, contents.solids);
+                for (Entity entity : contents.entities) {
+                    add(entity);
+                }
+            }
+        }
+    }
+
+    /**
+     * Starts reading the unloaded chunks in a range, and stops reading those that left it.
+     */
+    private void prefetch(int from, int to) {
+        this.prefetchFrom = from;
+        this.prefetchTo = to;
+
+        for (int i = prefetching.size() - 1; i >= 0; i--) {
+            Chunk chunk = prefetching.get(i);
+            if (chunk.index < from || chunk.index > to) {
+                chunk.cancel();
+                prefetching.remove(i);
+            }
+        }
+        for (Chunk chunk : unloaded.subMap(from, true, to, true).values()) {
+            if (chunk.loading == null) {
+                chunk.prefetch(staticSolids);
+                prefetching.add(chunk);
+            }
+        }
+    }
+
+    /**
+     * Adds a chunk that hasn't been loaded yet, from the level template.
+     * @param index The chunk index
+     * @param prototypes The entities in the chunk kept in memory, or null if there are none
+     * @param copied Whether each prototype must be copied (rather than shared) when loaded
+     * @param records The records holding the rest of the chunk's entities, which this level now also holds
+     */
+    void defer(int index, Entity[] prototypes, boolean[] copied, ChunkSpill.Record[] records) {
+        Chunk chunk = new Chunk(index);
+        chunk.prototypes = prototypes;
+        chunk.copied = copied;
+        for (ChunkSpill.Record record : records) {
+            record.retain();
+            chunk.records.add(record);
+        }
+        defer(index, chunk);
+    }
+
+    /**
+     * Takes on the unloaded chunks of another level this level is a copy of.
+     * @param original The streamer of the original level
+     */
+    void inherit(RegionStreamer original) {
+        for (Map.Entry<Integer, Chunk> entry : original.unloaded.entrySet()) {
+            Chunk chunk = new Chunk(entry.getKey());
+            chunk.prototypes = entry.getValue().prototypes;
+            chunk.copied = entry.getValue().copied;
+            for (ChunkSpill.Record record : entry.getValue().records) {
+                record.retain();
+                chunk.records.add(record);
+            }
+            defer(entry.getKey(), chunk);
+        }
+    }
+
+    /**
+     * Adds an unloaded chunk, merging it with any chunk already unloaded at the same
+     * index, and starts loading it if it is in the loaded range. A chunk already being
+     * read is read again with the added entities.
+     */
+    private void defer(int index, Chunk chunk) {
+        Chunk existing = unloaded.get(index);
+        if (existing != null) {
+            existing.cancel();
+            prefetching.remove(existing);
+            arriving.remove(existing);
+            if (chunk.prototypes == null) {
+                existing.records.addAll(chunk.records);
+                chunk = existing;
+            } else {
+                chunk.records.addAll(existing.records);
+            }
+        }
+        unloaded.put(index, chunk);
+
+        if (index >= loadedFrom && index <= loadedTo) {
+            chunk.prefetch(staticSolids);
+            arriving.add(chunk);
+        } else if (index >= prefetchFrom && index <= prefetchTo) {
+            chunk.prefetch(staticSolids);
+            prefetching.add(chunk);
+        }
+    }
+
+    /**
+     * Writes the entities outside the given chunks to the spill file and removes them from the store.
+     */
+    private void unloadOutside(int from, int to, Entity hero) {
+        staticSolids.removeOutside(from, to);
+
+        TreeMap<Integer, List<Entity>> leaving = new TreeMap<>();
+
+        // Walk backwards, as removal moves the last entity into the freed position
+        EntityStore.View<Entity> entities = store.all();
+        for (int i = entities.size() - 1; i >= 0; i--) {
+            Entity entity = entities.get(i);
+            if (entity == hero || !ChunkSpill.canStore(entity)) {
+                continue;
+            }
+            int index = chunk(entity.getXPos());
+            if (index >= from && index <= to) {
+                continue;
+            }
+
+            leaving.computeIfAbsent(index, c -> new ArrayList<>()).add(entity);
+            if (entity.isSolid()) {
+                movingSolids.remove(entity);
+            }
+            store.remove(entities.handle(i));
+        }
+
+        if (leaving.isEmpty()) {
+            return;
+        }
+
+        if (spill == null) {
+            spill = new ChunkSpill();
+        }
+
+        for (Map.Entry<Integer, List<Entity>> group : leaving.entrySet()) {
+            Chunk chunk = new Chunk(group.getKey());
+            chunk.records.add(spill.write(group.getValue()));
+            defer(group.getKey(), chunk);
+        }
+    }
+
+    /**
+     * Adds a loaded entity to the store (and the moving solids, if it is one).
+     */
+    private void add(Entity entity) {
+        store.add(entity);
+        if (entity.isSolid() && entity instanceof MovingEntity) {
+            movingSolids.insert(entity);
+        }
+    }
+
+    /**
+     * The entities of an unloaded chunk: records in spill files (the template's, if
+     * it has never been loaded, and this level's for entities unloaded since), and
+     * prototypes for any entities the template couldn't write. The chunk holds each
+     * of its records until it is loaded.
+     */
+    private static class Chunk {
+        private final int index;
+        private Entity[] prototypes;
+        private boolean[] copied;
+        private final List<ChunkSpill.Record> records = new ArrayList<>(1);
+
+        /**
+         * The chunk's entities and index, being made on the spill thread, or null if they aren't.
+         */
+        private Future<Contents> loading;
+
+        Chunk(int index) {
+            this.index = index;
+        }
+
+        /**
+         * Starts making the chunk's entities, and the index of its static solids, on the spill thread.
+         * @param staticSolids The index the chunk's static solids will be added to
+         */
+        void prefetch(ChunkedSolidIndex staticSolids) {
+            Entity[] prototypes = this.prototypes;
+            boolean[] copied = this.copied;
+            ChunkSpill.Record[] records = this.records.toArray(new ChunkSpill.Record[0]);
+            this.loading = ChunkSpill.submit(() -> {
+                List<Entity> entities = new ArrayList<>();
+                read(prototypes, copied, records, entities);
+                return new Contents(entities, staticSolids.build(entities));
+            });
+        }
+
+        /**
+         * Stops making the chunk's entities ahead of time.
+         */
+        void cancel() {
+            if (loading != null) {
+                loading.cancel(false);
+                loading = null;
+            }
+        }
+
+        /**
+         * Gets the chunk's entities and index once they have been made, and lets go of
+         * its records. Only called once loading is done, so it never waits.
+         */
+        Contents take() {
+            Contents contents = ChunkSpill.await(loading);
+            loading = null;
+
+            // Released after the read above, which was submitted first
+            for (ChunkSpill.Record record : records) {
+                record.release();
+            }
+            records.clear();
+            return contents;
+        }
+
+        /**
+         * Recreates the entities from prototypes and records.
+         */
+        private static void read(Entity[] prototypes, boolean[] copied, ChunkSpill.Record[] records, List<Entity> entities) {
+            if (prototypes != null) {
+                for (int i = 0; i < prototypes.length; i++) {
+                    entities.add(copied[i] ? prototypes[i].copy() : prototypes[i]);
+                }
+            }
+            for (ChunkSpill.Record record : records) {
+                record.read(entities);
+            }
+        }
+    }
+
+    /**
+     * A loaded chunk: its entities and the index of the static solids among them.
+     */
+    private static class Contents {
+        private final List<Entity> entities;
+        private final StaticSolidIndex solids;
+
+        Contents(List<Entity> entities, StaticSolidIndex solids) {
+            this.entities = entities;
+            this.solids = solids;
+        }
+    }
+}
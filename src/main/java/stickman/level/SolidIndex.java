@@ -0,0 +1,38 @@
+package stickman.level;
+
+import stickman.entity.Entity;
+
+/**
+ * Interface describing a lookup structure for the solid entities in a level.
+ * Used by moving entities to find the nearest obstacle without scanning every
+ * entity in the level.
+ */
+public interface SolidIndex {
+
+    /**
+     * Returns the distance (in pixels) to the nearest solid entity that shares
+     * y-coordinates with the given entity, or the limit if nothing is closer.
+     * @param entity The entity casting the ray
+     * @param left Whether to check to the left
+     * @param limit The largest distance to return
+     * @return The distance to the nearest solid entity in the direction
+     */
+    double nearestHorizontal(Entity entity, boolean left, double limit);
+
+    /**
+     * Returns the distance (in pixels) to the nearest solid entity that shares
+     * x-coordinates with the given entity, or the limit if nothing is closer.
+     * @param entity The entity casting the ray
+     * @param up Whether to check upwards
+     * @param limit The largest distance to return
+     * @return The distance to the nearest solid entity in the direction
+     */
+    double nearestVertical(Entity entity, boolean up, double limit);
+
+    /**
+     * Returns true if the entity overlaps any solid entity other than itself.
+     * @param entity The entity to check
+     * @return Whether the entity is colliding with a solid entity
+     */
+    boolean collides(Entity entity);
+}
@@ -0,0 +1,371 @@
+package stickman.level;
+
+import stickman.entity.Entity;
+
+import java.util.Arrays;
+
+/**
+ * Uniform-grid spatial hash of solid entities. Each entity is stored in every
+ * cell its bounds overlap, so a ray only has to visit the cells it crosses.
+ */
+public class SpatialHash implements SolidIndex {
+
+    /**
+     * The default width and height of a cell.
+     */
+    private static final double DEFAULT_CELL_SIZE = 64;
+
+    /**
+     * The starting number of slots in the hash table (must be a power of two).
+     */
+    private static final int INITIAL_CAPACITY = 64;
+
+    /**
+     * The starting number of entities a single cell can hold.
+     */
+    private static final int INITIAL_CELL_CAPACITY = 4;
+
+    /**
+     * The width and height of a cell.
+     */
+    private final double cellSize;
+
+    /**
+     * The packed (column, row) key of each slot.
+     */
+    private long[] keys;
+
+    /**
+     * The entities stored in each slot, or null if the slot is free.
+     */
+    private Entity[][] cells;
+
+    /**
+     * The number of entities stored in each slot.
+     */
+    private int[] counts;
+
+    /**
+     * The number of slots in use.
+     */
+    private int used;
+
+    /**
+     * The smallest and largest occupied columns and rows. Rays stop once they leave these.
+     */
+    private int minCol = Integer.MAX_VALUE;
+    private int maxCol = Integer.MIN_VALUE;
+    private int minRow = Integer.MAX_VALUE;
+    private int maxRow = Integer.MIN_VALUE;
+
+    /**
+     * Creates an empty SpatialHash with the default cell size.
+     */
+    public SpatialHash() {
+        this(DEFAULT_CELL_SIZE);
+    }
+
+    /**
+     * Creates an empty SpatialHash.
+     * @param cellSize The width and height of each cell
+     */
+    public SpatialHash(double cellSize) {
+        this.cellSize = cellSize;
+        this.keys = new long[INITIAL_CAPACITY];
+        this.cells = new Entity[INITIAL_CAPACITY][];
+        this.counts = new int[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Adds an entity to every cell its bounds overlap.
+     * @param entity The entity to add
+     */
+    public void insert(Entity entity) {
+        int firstCol = cellIndex(entity.getXPos());
+        int lastCol = cellIndex(entity.getXPos() + entity.getWidth());
+        int firstRow = cellIndex(entity.getYPos());
+        int lastRow = cellIndex(entity.getYPos() + entity.getHeight());
+
+        for (int col = firstCol; col <= lastCol; col++) {
+            for (int row = firstRow; row <= lastRow; row++) {
+                int slot = findOrCreate(col, row);
+                Entity[] cell = cells[slot];
+                if (counts[slot] == cell.length) {
+                    cell = Arrays.copyOf(cell, cell.length * 2);
+                    cells[slot] = cell;
+                }
+                cell[counts[slot]++] = entity;
+            }
+        }
+
+        minCol = Math.min(minCol, firstCol);
+        maxCol = Math.max(maxCol, lastCol);
+        minRow = Math.min(minRow, firstRow);
+        maxRow = Math.max(maxRow, lastRow);
+    }
+
+    /**
+     * Removes an entity. The entity must not have moved since it was inserted.
+     * @param entity The entity to remove
+     */
+    public void remove(Entity entity) {
+        int firstCol = cellIndex(entity.getXPos());
+        int lastCol = cellIndex(entity.getXPos() + entity.getWidth());
+        int firstRow = cellIndex(entity.getYPos());
+        int lastRow = cellIndex(entity.getYPos() + entity.getHeight());
+
+        for (int col = firstCol; col <= lastCol; col++) {
+            for (int row = firstRow; row <= lastRow; row++) {
+                int slot = find(col, row);
+                if (slot < 0) {
+                    continue;
+                }
+                Entity[] cell = cells[slot];
+                for (int i = 0; i < counts[slot]; i++) {
+                    if (cell[i] == entity) {
+                        cell[i] = cell[--counts[slot]];
+                        cell[counts[slot]] = null;
+                        break;
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public double nearestHorizontal(Entity entity, boolean left, double limit) {
+        double res = limit;
+
+        double top = entity.getYPos();
+        double bottom = top + entity.getHeight();
+        int firstRow = Math.max(cellIndex(top), minRow);
+        int lastRow = Math.min(cellIndex(bottom), maxRow);
+
+        if (left) {
+            double start = entity.getXPos();
+            for (int col = Math.min(cellIndex(start), maxCol); col >= minCol; col--) {
+                if (start - (col + 1) * cellSize > res) {
+                    break;
+                }
+                for (int row = firstRow; row <= lastRow; row++) {
+                    int slot = find(col, row);
+                    if (slot < 0) {
+                        continue;
+                    }
+                    Entity[] cell = cells[slot];
+                    for (int i = 0; i < counts[slot]; i++) {
+                        Entity other = cell[i];
+                        if (other != entity && top < other.getYPos() + other.getHeight() && bottom > other.getYPos()) {
+                            double distance = start - (other.getXPos() + other.getWidth());
+                            if (distance >= 0) {
+                                res = Math.min(res, distance);
+                            }
+                        }
+                    }
+                }
+            }
+        } else {
+            double start = entity.getXPos() + entity.getWidth();
+            for (int col = Math.max(cellIndex(start), minCol); col <= maxCol; col++) {
+                if (col * cellSize - start > res) {
+                    break;
+                }
+                for (int row = firstRow; row <= lastRow; row++) {
+                    int slot = find(col, row);
+                    if (slot < 0) {
+                        continue;
+                    }
+                    Entity[] cell = cells[slot];
+                    for (int i = 0; i < counts[slot]; i++) {
+                        Entity other = cell[i];
+                        if (other != entity && top < other.getYPos() + other.getHeight() && bottom > other.getYPos()) {
+                            double distance = other.getXPos() - start;
+                            if (distance >= 0) {
+                                res = Math.min(res, distance);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        return res;
+    }
+
+    @Override
+    public double nearestVertical(Entity entity, boolean up, double limit) {
+        double res = limit;
+
+        double leftEdge = entity.getXPos();
+        double rightEdge = leftEdge + entity.getWidth();
+        int firstCol = Math.max(cellIndex(leftEdge), minCol);
+        int lastCol = Math.min(cellIndex(rightEdge), maxCol);
+
+        if (up) {
+            double start = entity.getYPos();
+            for (int row = Math.min(cellIndex(start), maxRow); row >= minRow; row--) {
+                if (start - (row + 1) * cellSize > res) {
+                    break;
+                }
+                for (int col = firstCol; col <= lastCol; col++) {
+                    int slot = find(col, row);
+                    if (slot < 0) {
+                        continue;
+                    }
+                    Entity[] cell = cells[slot];
+                    for (int i = 0; i < counts[slot]; i++) {
+                        Entity other = cell[i];
+                        if (other != entity && leftEdge < other.getXPos() + other.getWidth() && rightEdge > other.getXPos()) {
+                            double distance = start - (other.getYPos() + other.getHeight());
+                            if (distance >= 0) {
+                                res = Math.min(res, distance);
+                            }
+                        }
+                    }
+                }
+            }
+        } else {
+            double start = entity.getYPos() + entity.getHeight();
+            for (int row = Math.max(cellIndex(start), minRow); row <= maxRow; row++) {
+                if (row * cellSize - start > res) {
+                    break;
+                }
+                for (int col = firstCol; col <= lastCol; col++) {
+                    int slot = find(col, row);
+                    if (slot < 0) {
+                        continue;
+                    }
+                    Entity[] cell = cells[slot];
+                    for (int i = 0; i < counts[slot]; i++) {
+                        Entity other = cell[i];
+                        if (other != entity && leftEdge < other.getXPos() + other.getWidth() && rightEdge > other.getXPos()) {
+                            double distance = other.getYPos() - start;
+                            if (distance >= 0) {
+                                res = Math.min(res, distance);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        return res;
+    }
+
+    @Override
+    public boolean collides(Entity entity) {
+        int firstCol = Math.max(cellIndex(entity.getXPos()), minCol);
+        int lastCol = Math.min(cellIndex(entity.getXPos() + entity.getWidth()), maxCol);
+        int firstRow = Math.max(cellIndex(entity.getYPos()), minRow);
+        int lastRow = Math.min(cellIndex(entity.getYPos() + entity.getHeight()), maxRow);
+
+        for (int col = firstCol; col <= lastCol; col++) {
+            for (int row = firstRow; row <= lastRow; row++) {
+                int slot = find(col, row);
+                if (slot < 0) {
+                    continue;
+                }
+                Entity[] cell = cells[slot];
+                for (int i = 0; i < counts[slot]; i++) {
+                    if (cell[i] != entity && entity.checkCollide(cell[i])) {
+                        return true;
+                    }
+                }
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Converts a coordinate into the index of the column (or row) containing it.
+     * @param coordinate The x or y coordinate
+     * @return The cell index along that axis
+     */
+    private int cellIndex(double coordinate) {
+        return (int) Math.floor(coordinate / cellSize);
+    }
+
+    /**
+     * Packs a column and row into a single key.
+     */
+    private static long key(int col, int row) {
+        return ((long) col << 32) | (row & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Spreads the bits of a key so neighbouring cells land in different slots.
+     */
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * Finds the slot holding a cell.
+     * @return The slot, or -1 if the cell has never been used
+     */
+    private int find(int col, int row) {
+        long key = key(col, row);
+        int mask = keys.length - 1;
+        for (int slot = hash(key) & mask; cells[slot] != null; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Finds the slot holding a cell, claiming a free slot if it doesn't exist yet.
+     * @return The slot of the cell
+     */
+    private int findOrCreate(int col, int row) {
+        if ((used + 1) * 2 > keys.length) {
+            grow();
+        }
+
+        long key = key(col, row);
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        while (cells[slot] != null) {
+            if (keys[slot] == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        keys[slot] = key;
+        cells[slot] = new Entity[INITIAL_CELL_CAPACITY];
+        counts[slot] = 0;
+        used++;
+        return slot;
+    }
+
+    /**
+     * Doubles the number of slots and rehashes every cell.
+     */
+    private void grow() {
+        long[] oldKeys = keys;
+        Entity[][] oldCells = cells;
+        int[] oldCounts = counts;
+
+        keys = new long[oldKeys.length * 2];
+        cells = new Entity[oldKeys.length * 2][];
+        counts = new int[oldKeys.length * 2];
+
+        int mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldCells[i] == null) {
+                continue;
+            }
+            int slot = hash(oldKeys[i]) & mask;
+            while (cells[slot] != null) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = oldKeys[i];
+            cells[slot] = oldCells[i];
+            counts[slot] = oldCounts[i];
+        }
+    }
+}
@@ -0,0 +1,586 @@
+package stickman.level;
+
+import stickman.entity.Entity;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Read-only index of the solid entities in a level that never move (such as Platform).
+ * The solids are split into horizontal bands by y-coordinate. Within a band, solids
+ * covering the same y-interval share a bucket sorted by x-coordinate, so a horizontal
+ * ray is a binary search per bucket plus a short scan. Each band also keeps all its
+ * solids in one list sorted by x-coordinate (cut into pieces at most SPAN_WIDTH wide),
+ * so vertical rays and overlap tests binary-search to the solids under the entity
+ * however many different heights the band holds. Built once for each chunk of a
+ * level (see ChunkedSolidIndex) and shared by every copy of the level.
+ *
+ * Levels draw walls and floors as rows and columns of small tiles. A merged index
+ * joins tiles that touch or overlap into one rectangle per run (and stacks runs of
+ * the same width into columns), which gives the same answers for any entity that
+ * isn't already inside a solid, from far fewer rectangles. Runs are cut into pieces
+ * at most MAX_MERGED_WIDTH wide, as the widest solid in a bucket sets how far back
+ * its scans must search.
+ */
+public class StaticSolidIndex implements SolidIndex {
+
+    /**
+     * The height of each y-band.
+     */
+    private static final double BAND_HEIGHT = 64;
+
+    /**
+     * The widest rectangle a merged index makes from narrower solids.
+     */
+    private static final double MAX_MERGED_WIDTH = 256;
+
+    /**
+     * The widest piece in a band's list of spans, which bounds how far back a search of it goes.
+     */
+    private static final double SPAN_WIDTH = 256;
+
+    /**
+     * An index containing no solids.
+     */
+    public static final StaticSolidIndex EMPTY = new StaticSolidIndex(new double[0], new double[0], new double[0], new double[0]);
+
+    /**
+     * The index of the first band.
+     */
+    private final int firstBand;
+
+    /**
+     * The buckets of each band, sorted by top edge. Unused bands have no buckets.
+     */
+    private final Bucket[][] bands;
+
+    /**
+     * The solids of each band, sorted by left edge.
+     */
+    private final Spans[] spans;
+
+    /**
+     * The number of solids in the index.
+     */
+    private final int size;
+
+    /**
+     * The left edge of the leftmost solid and the right edge of the rightmost one.
+     */
+    private final double minX;
+    private final double maxX;
+
+    /**
+     * Builds an index from the solid entities in a list. Non-solid entities are ignored.
+     * @param entities The static entities in the level
+     * @return The corresponding index
+     */
+    public static StaticSolidIndex of(List<? extends Entity> entities) {
+        return Rects.solids(entities).toIndex();
+    }
+
+    /**
+     * Builds an index from the solid entities in a list, merging solids that touch or
+     * overlap into larger rectangles. Non-solid entities are ignored.
+     * @param entities The static entities in the level
+     * @return The corresponding index
+     */
+    public static StaticSolidIndex merged(List<? extends Entity> entities) {
+        return Rects.solids(entities).mergeRows().split(MAX_MERGED_WIDTH).mergeColumns().toIndex();
+    }
+
+    /**
+     * Builds an index from solid rectangles given as parallel arrays.
+     * @param xs The x-coordinate of each rectangle
+     * @param ys The y-coordinate of each rectangle
+     * @param widths The width of each rectangle
+     * @param heights The height of each rectangle
+     */
+    public StaticSolidIndex(double[] xs, double[] ys, double[] widths, double[] heights) {
+        this.size = xs.length;
+
+        double left = Double.POSITIVE_INFINITY;
+        double right = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < size; i++) {
+            left = Math.min(left, xs[i]);
+            right = Math.max(right, xs[i] + widths[i]);
+        }
+        this.minX = left;
+        this.maxX = right;
+
+        if (size == 0) {
+            this.firstBand = 0;
+            this.bands = new Bucket[0][];
+            this.spans = new Spans[0];
+            return;
+        }
+
+        int minBand = Integer.MAX_VALUE;
+        int maxBand = Integer.MIN_VALUE;
+        for (int i = 0; i < size; i++) {
+            minBand = Math.min(minBand, band(ys[i]));
+            maxBand = Math.max(maxBand, band(ys[i] + heights[i]));
+        }
+
+        // Put every rectangle into each band it overlaps
+        List<List<Integer>> members = new ArrayList<>();
+        for (int b = minBand; b <= maxBand; b++) {
+            members.add(new ArrayList<>());
+        }
+        for (int i = 0; i < size; i++) {
+            for (int b = band(ys[i]); b <= band(ys[i] + heights[i]); b++) {
+                members.get(b - minBand).add(i);
+            }
+        }
+
+        // Within a band, group rectangles with the same y-interval, each group sorted by x
+        Comparator<Integer> order = Comparator.<Integer>comparingDouble(i -> ys[i])
+                .thenComparingDouble(i -> ys[i] + heights[i])
+                .thenComparingDouble(i -> xs[i]);
+
+        this.firstBand = minBand;
+        this.bands = new Bucket[maxBand - minBand + 1][];
+        this.spans = new Spans[bands.length];
+        for (int b = 0; b < bands.length; b++) {
+            List<Integer> ids = members.get(b);
+            ids.sort(order);
+            spans[b] = new Spans(ids, xs, ys, widths, heights);
+
+            List<Bucket> buckets = new ArrayList<>();
+            int start = 0;
+            for (int i = 1; i <= ids.size(); i++) {
+                if (i == ids.size() || ys[ids.get(i)] != ys[ids.get(start)]
+                        || ys[ids.get(i)] + heights[ids.get(i)] != ys[ids.get(start)] + heights[ids.get(start)]) {
+                    buckets.add(new Bucket(ids.subList(start, i), xs, ys, widths, heights));
+                    start = i;
+                }
+            }
+            bands[b] = buckets.toArray(new Bucket[0]);
+        }
+    }
+
+    /**
+     * Gets the number of solids in the index.
+     * @return The number of solids
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Gets the left edge of the leftmost solid in the index.
+     * @return The smallest x-coordinate of any solid, or positive infinity if there are none
+     */
+    public double minX() {
+        return this.minX;
+    }
+
+    /**
+     * Gets the right edge of the rightmost solid in the index.
+     * @return The largest x-coordinate of any solid, or negative infinity if there are none
+     */
+    public double maxX() {
+        return this.maxX;
+    }
+
+    @Override
+    public double nearestHorizontal(Entity entity, boolean left, double limit) {
+        double res = limit;
+
+        double top = entity.getYPos();
+        double bottom = top + entity.getHeight();
+
+        int from = Math.max(band(top) - firstBand, 0);
+        int to = Math.min(band(bottom) - firstBand, bands.length - 1);
+
+        for (int b = from; b <= to; b++) {
+            for (Bucket bucket : bands[b]) {
+                if (bucket.minY >= bottom) {
+                    break;
+                }
+                if (bucket.maxY <= top) {
+                    continue;
+                }
+
+                if (left) {
+                    double start = entity.getXPos();
+                    for (int i = bucket.upperBound(start) - 1; i >= 0; i--) {
+                        if (start - (bucket.minX[i] + bucket.maxWidth) > res) {
+                            break;
+                        }
+                        double distance = start - bucket.maxX[i];
+                        if (distance >= 0) {
+                            res = Math.min(res, distance);
+                        }
+                    }
+                } else {
+                    double start = entity.getXPos() + entity.getWidth();
+                    int i = bucket.lowerBound(start);
+                    if (i < bucket.minX.length) {
+                        res = Math.min(res, bucket.minX[i] - start);
+                    }
+                }
+            }
+        }
+
+        return res;
+    }
+
+    @Override
+    public double nearestVertical(Entity entity, boolean up, double limit) {
+        double res = limit;
+
+        double leftEdge = entity.getXPos();
+        double rightEdge = leftEdge + entity.getWidth();
+
+        if (up) {
+            double start = entity.getYPos();
+            for (int b = Math.min(band(start) - firstBand, bands.length - 1); b >= 0; b--) {
+                if (start - (b + firstBand + 1) * BAND_HEIGHT > res) {
+                    break;
+                }
+                Spans band = spans[b];
+                for (int i = band.first(leftEdge); i < band.minX.length && band.minX[i] < rightEdge; i++) {
+                    double distance = start - band.maxY[i];
+                    if (distance >= 0 && distance < res && band.maxX[i] > leftEdge) {
+                        res = distance;
+                    }
+                }
+            }
+        } else {
+            double start = entity.getYPos() + entity.getHeight();
+            for (int b = Math.max(band(start) - firstBand, 0); b < bands.length; b++) {
+                if ((b + firstBand) * BAND_HEIGHT - start > res) {
+                    break;
+                }
+                Spans band = spans[b];
+                for (int i = band.first(leftEdge); i < band.minX.length && band.minX[i] < rightEdge; i++) {
+                    double distance = band.minY[i] - start;
+                    if (distance >= 0 && distance < res && band.maxX[i] > leftEdge) {
+                        res = distance;
+                    }
+                }
+            }
+        }
+
+        return res;
+    }
+
+    @Override
+    public boolean collides(Entity entity) {
+        double leftEdge = entity.getXPos();
+        double rightEdge = leftEdge + entity.getWidth();
+        double top = entity.getYPos();
+        double bottom = top + entity.getHeight();
+
+        int from = Math.max(band(top) - firstBand, 0);
+        int to = Math.min(band(bottom) - firstBand, bands.length - 1);
+
+        for (int b = from; b <= to; b++) {
+            Spans band = spans[b];
+            for (int i = band.first(leftEdge); i < band.minX.length && band.minX[i] < rightEdge; i++) {
+                if (band.maxX[i] > leftEdge && band.minY[i] < bottom && band.maxY[i] > top) {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Returns the first position in a sorted array whose value is at least x.
+     */
+    private static int lowerBound(double[] sorted, double x) {
+        int lo = 0;
+        int hi = sorted.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (sorted[mid] < x) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * Converts a y-coordinate into the index of the band containing it.
+     * @param y The y-coordinate
+     * @return The band index
+     */
+    private static int band(double y) {
+        return (int) Math.floor(y / BAND_HEIGHT);
+    }
+
+    /**
+     * A growable list of rectangles, stored as parallel arrays.
+     */
+    private static class Rects {
+        private double[] xs;
+        private double[] ys;
+        private double[] widths;
+        private double[] heights;
+        private int size;
+
+        Rects(int capacity) {
+            this.xs = new double[capacity];
+            this.ys = new double[capacity];
+            this.widths = new double[capacity];
+            this.heights = new double[capacity];
+        }
+
+        /**
+         * Collects the bounds of the solid entities in a list.
+         */
+        static Rects solids(List<? extends Entity> entities) {
+            int count = 0;
+            for (Entity entity : entities) {
+                if (entity.isSolid()) {
+                    count++;
+                }
+            }
+
+            Rects rects = new Rects(count);
+            for (Entity entity : entities) {
+                if (entity.isSolid()) {
+                    rects.add(entity.getXPos(), entity.getYPos(), entity.getWidth(), entity.getHeight());
+                }
+            }
+            return rects;
+        }
+
+        void add(double x, double y, double width, double height) {
+            if (size == xs.length) {
+                int capacity = Math.max(size * 2, 16);
+                xs = Arrays.copyOf(xs, capacity);
+                ys = Arrays.copyOf(ys, capacity);
+                widths = Arrays.copyOf(widths, capacity);
+                heights = Arrays.copyOf(heights, capacity);
+            }
+            xs[size] = x;
+            ys[size] = y;
+            widths[size] = width;
+            heights[size] = height;
+            size++;
+        }
+
+        /**
+         * Joins rectangles with the same y-interval that touch or overlap horizontally.
+         */
+        Rects mergeRows() {
+            Integer[] order = sorted(Comparator.<Integer>comparingDouble(i -> ys[i])
+                    .thenComparingDouble(i -> heights[i])
+                    .thenComparingDouble(i -> xs[i]));
+
+            Rects merged = new Rects(size);
+            for (int i = 0; i < order.length; ) {
+                int first = order[i];
+                double right = xs[first] + widths[first];
+                int j = i + 1;
+                while (j < order.length && ys[order[j]] == ys[first] && heights[order[j]] == heights[first]
+                        && xs[order[j]] <= right) {
+                    right = Math.max(right, xs[order[j]] + widths[order[j]]);
+                    j++;
+                }
+                merged.add(xs[first], ys[first], right - xs[first], heights[first]);
+                i = j;
+            }
+            return merged;
+        }
+
+        /**
+         * Cuts rectangles wider than the limit into pieces of equal width no wider than it.
+         */
+        Rects split(double limit) {
+            Rects pieces = new Rects(size);
+            for (int i = 0; i < size; i++) {
+                int count = (int) Math.ceil(widths[i] / limit);
+                if (count <= 1) {
+                    pieces.add(xs[i], ys[i], widths[i], heights[i]);
+                    continue;
+                }
+                double right = xs[i] + widths[i];
+                for (int k = 0; k < count; k++) {
+                    // Computed from the ends, so neighbouring pieces meet exactly
+                    double left = k == 0 ? xs[i] : xs[i] + widths[i] * k / count;
+                    double end = k == count - 1 ? right : xs[i] + widths[i] * (k + 1) / count;
+                    pieces.add(left, ys[i], end - left, heights[i]);
+                }
+            }
+            return pieces;
+        }
+
+        /**
+         * Joins rectangles with the same x-interval that touch or overlap vertically.
+         */
+        Rects mergeColumns() {
+            Integer[] order = sorted(Comparator.<Integer>comparingDouble(i -> xs[i])
+                    .thenComparingDouble(i -> widths[i])
+                    .thenComparingDouble(i -> ys[i]));
+
+            Rects merged = new Rects(size);
+            for (int i = 0; i < order.length; ) {
+                int first = order[i];
+                double bottom = ys[first] + heights[first];
+                int j = i + 1;
+                while (j < order.length && xs[order[j]] == xs[first] && widths[order[j]] == widths[first]
+                        && ys[order[j]] <= bottom) {
+                    bottom = Math.max(bottom, ys[order[j]] + heights[order[j]]);
+                    j++;
+                }
+                merged.add(xs[first], ys[first], widths[first], bottom - ys[first]);
+                i = j;
+            }
+            return merged;
+        }
+
+        private Integer[] sorted(Comparator<Integer> comparator) {
+            Integer[] order = new Integer[size];
+            for (int i = 0; i < size; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, comparator);
+            return order;
+        }
+
+        StaticSolidIndex toIndex() {
+            return new StaticSolidIndex(Arrays.copyOf(xs, size), Arrays.copyOf(ys, size),
+                    Arrays.copyOf(widths, size), Arrays.copyOf(heights, size));
+        }
+    }
+
+    /**
+     * Solids sharing the same y-interval, stored as parallel arrays sorted by left edge.
+     */
+    private static class Bucket {
+
+        private final double minY;
+        private final double maxY;
+        private final double[] minX;
+        private final double[] maxX;
+
+        /**
+         * The widest solid in the bucket. Bounds how far back a leftward scan must go.
+         */
+        private final double maxWidth;
+
+        Bucket(List<Integer> ids, double[] xs, double[] ys, double[] widths, double[] heights) {
+            int first = ids.get(0);
+            this.minY = ys[first];
+            this.maxY = ys[first] + heights[first];
+
+            int n = ids.size();
+            this.minX = new double[n];
+            this.maxX = new double[n];
+
+            double widest = 0;
+            for (int i = 0; i < n; i++) {
+                int id = ids.get(i);
+                minX[i] = xs[id];
+                maxX[i] = xs[id] + widths[id];
+                widest = Math.max(widest, widths[id]);
+            }
+            this.maxWidth = widest;
+        }
+
+        /**
+         * Returns the first position whose left edge is at least x.
+         */
+        int lowerBound(double x) {
+            return StaticSolidIndex.lowerBound(minX, x);
+        }
+
+        /**
+         * Returns the first position whose left edge is greater than x.
+         */
+        int upperBound(double x) {
+            int lo = 0;
+            int hi = minX.length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (minX[mid] <= x) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+    }
+
+    /**
+     * All the solids in a band, stored as parallel arrays sorted by left edge. Solids
+     * wider than SPAN_WIDTH are cut into pieces, which doesn't change which solids
+     * an x-interval overlaps but keeps the search window short.
+     */
+    private static class Spans {
+
+        private final double[] minX;
+        private final double[] maxX;
+        private final double[] minY;
+        private final double[] maxY;
+
+        /**
+         * The widest piece in the band.
+         */
+        private final double maxWidth;
+
+        Spans(List<Integer> ids, double[] xs, double[] ys, double[] widths, double[] heights) {
+            int n = 0;
+            for (int id : ids) {
+                n += pieces(widths[id]);
+            }
+
+            Integer[] order = new Integer[n];
+            double[] lefts = new double[n];
+            double[] rights = new double[n];
+            double[] tops = new double[n];
+            double[] bottoms = new double[n];
+            int p = 0;
+            for (int id : ids) {
+                int count = pieces(widths[id]);
+                for (int k = 0; k < count; k++) {
+                    order[p] = p;
+                    lefts[p] = k == 0 ? xs[id] : xs[id] + widths[id] * k / count;
+                    rights[p] = k == count - 1 ? xs[id] + widths[id] : xs[id] + widths[id] * (k + 1) / count;
+                    tops[p] = ys[id];
+                    bottoms[p] = ys[id] + heights[id];
+                    p++;
+                }
+            }
+            Arrays.sort(order, Comparator.comparingDouble(i -> lefts[i]));
+
+            this.minX = new double[n];
+            this.maxX = new double[n];
+            this.minY = new double[n];
+            this.maxY = new double[n];
+            double widest = 0;
+            for (int i = 0; i < n; i++) {
+                minX[i] = lefts[order[i]];
+                maxX[i] = rights[order[i]];
+                minY[i] = tops[order[i]];
+                maxY[i] = bottoms[order[i]];
+                widest = Math.max(widest, maxX[i] - minX[i]);
+            }
+            this.maxWidth = widest;
+        }
+
+        /**
+         * The number of pieces a solid of the given width is cut into.
+         */
+        private static int pieces(double width) {
+            return Math.max(1, (int) Math.ceil(width / SPAN_WIDTH));
+        }
+
+        /**
+         * Returns the first position that may overlap an x-interval with the given left edge.
+         */
+        int first(double leftEdge) {
+            return lowerBound(minX, leftEdge - maxWidth);
+        }
+    }
+}
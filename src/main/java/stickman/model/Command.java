@@ -0,0 +1,19 @@
+package stickman.model;
+
+/**
+ * The inputs a player can send to a GameEngine.
+ * Recordings store each command's ordinal, so new commands must go at the end.
+ */
+public enum Command {
+    JUMP, LEFT, RIGHT, STOP, SHOOT, SAVE, LOAD;
+
+    /**
+     * Finds the command with the given name, ignoring case.
+     * @param name The name of the command (e.g. "jump")
+     * @return The corresponding Command
+     * @throws IllegalArgumentException If no command has that name
+     */
+    public static Command parse(String name) {
+        return Command.valueOf(name.trim().toUpperCase());
+    }
+}
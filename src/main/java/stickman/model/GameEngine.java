@@ -57,6 +57,19 @@ public interface GameEngine {
     void nextLevel(); //transition to next level
     long getTotalScore();
 
+    /**
+     * Gets whether the game is still being played, or has been won or lost.
+     * @return The current status of the game
+     */
+    Status getStatus();
+
     GameMemento saveMemento();
     void loadMemento(GameMemento game);
+
+    /**
+     * The possible states of a game.
+     */
+    enum Status {
+        RUNNING, WON, LOST
+    }
 }
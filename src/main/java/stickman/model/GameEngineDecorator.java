@@ -0,0 +1,93 @@
+package stickman.model;
+
+import stickman.level.Level;
+
+/**
+ * Base class for GameEngines that wrap another GameEngine and add behaviour
+ * to some of its methods. Every method forwards to the wrapped engine by default.
+ */
+public abstract class GameEngineDecorator implements GameEngine {
+
+    /**
+     * The GameEngine being wrapped.
+     */
+    protected final GameEngine model;
+
+    /**
+     * Creates a new GameEngineDecorator object.
+     * @param model The GameEngine to wrap
+     */
+    protected GameEngineDecorator(GameEngine model) {
+        this.model = model;
+    }
+
+    @Override
+    public Level getCurrentLevel() {
+        return model.getCurrentLevel();
+    }
+
+    @Override
+    public boolean jump() {
+        return model.jump();
+    }
+
+    @Override
+    public boolean moveLeft() {
+        return model.moveLeft();
+    }
+
+    @Override
+    public boolean moveRight() {
+        return model.moveRight();
+    }
+
+    @Override
+    public boolean stopMoving() {
+        return model.stopMoving();
+    }
+
+    @Override
+    public void tick() {
+        model.tick();
+    }
+
+    @Override
+    public void shoot() {
+        model.shoot();
+    }
+
+    @Override
+    public void reset() {
+        model.reset();
+    }
+
+    @Override
+    public void endGame() {
+        model.endGame();
+    }
+
+    @Override
+    public void nextLevel() {
+        model.nextLevel();
+    }
+
+    @Override
+    public long getTotalScore() {
+        return model.getTotalScore();
+    }
+
+    @Override
+    public Status getStatus() {
+        return model.getStatus();
+    }
+
+    @Override
+    public GameMemento saveMemento() {
+        return model.saveMemento();
+    }
+
+    @Override
+    public void loadMemento(GameMemento game) {
+        model.loadMemento(game);
+    }
+}
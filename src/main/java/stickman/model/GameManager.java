@@ -8,13 +8,25 @@ import stickman.entity.moving.player.Controllable;
 import stickman.entity.still.Over;
 import stickman.entity.still.Win;
 import stickman.level.*;
+import stickman.perf.LevelTransitionEvent;
+import stickman.perf.SnapshotEvent;
 
 import java.io.FileReader;
 import java.io.IOException;
 import java.io.Reader;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * Implementation of GameEngine. Manages the running of the game.
@@ -32,35 +44,102 @@ public class GameManager implements GameEngine {
     private List<String> levelFileNames;
     private int numLvls;
     private int currNumLvl;
+    private Status status;
+
+    /**
+     * Loads upcoming levels in the background, for every GameManager.
+     */
+    private static final ExecutorService PREFETCHER = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "level-prefetch");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * The next level, being loaded in the background, or null if there is no next level.
+     */
+    private Future<Prefetched> prefetched;
+
+    /**
+     * The position in levelFileNames of the prefetched level.
+     */
+    private int prefetchedIndex = -1;
+
+    /**
+     * The most levels whose parsed templates are kept in memory.
+     */
+    private static final int MAX_CACHED_TEMPLATES = 4;
+
+    /**
+     * Parsed levels by file name, least recently used first, so restarting
+     * a level doesn't read its file again.
+     */
+    private final Map<String, LevelTemplate> templates = new LinkedHashMap<String, LevelTemplate>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, LevelTemplate> eldest) {
+            return size() > MAX_CACHED_TEMPLATES;
+        }
+    };
+
+    /**
+     * Levels that have been edited and parsed again, by file name, waiting to be
+     * swapped in at the start of the next tick. Filled by other threads.
+     */
+    private final Map<String, LevelTemplate> reloaded = new ConcurrentHashMap<>();
 
     /**
      * Creates a GameManager object.
      * @param levels The config file containing the names of all the levels
      */
     public GameManager(String levels) {
-        this.levelFileNames = this.readConfigFile(levels);
+        this(readConfigFile(levels));
+    }
+
+    /**
+     * Creates a GameManager object that plays the given levels in order.
+     * @param levelFileNames The paths of the level files
+     */
+    public GameManager(List<String> levelFileNames) {
+        this.levelFileNames = levelFileNames;
+        this.status = Status.RUNNING;
         this.numLvls = this.levelFileNames.size();
         this.currNumLvl = 0;
         this.totalScore = 0;
 
-        this.level = LevelBuilderImpl.generateFromFile(levelFileNames.get(this.currNumLvl), this);
+        this.level = loadLevel(levelFileNames.get(this.currNumLvl));
         this.currNumLvl++;
+
+        prefetchNextLevel();
     }
 
 
     @Override
     public void nextLevel(){
+        LevelTransitionEvent event = LevelTransitionEvent.beginIfEnabled("next level", this.level.getSource());
+
         this.totalScore += this.level.getScore();
         long lives = this.level.getLives();
         if(this.currNumLvl < this.numLvls){//Only transit to levels that exist in levels folder
-            this.level = LevelBuilderImpl.generateFromFile(levelFileNames.get(this.currNumLvl), this);
+            this.level = takePrefetchedLevel();
             this.level.setLives(lives); //lives are carried on
             this.currNumLvl++;
+            prefetchNextLevel();
         }else{
-            this.level.getEntities().add(new Win(this.level.getHeroX() - 200, this.level.getHeroY() - 200));
+            this.status = Status.WON;
+            this.level.addEntity(new Win(this.level.getHeroX() - 200, this.level.getHeroY() - 200));
+        }
+
+        if (event != null) {
+            event.to = this.status == Status.WON ? null : this.level.getSource();
+            event.commit();
         }
     }
 
+    @Override
+    public Status getStatus() {
+        return this.status;
+    }
+
     @Override
     public long getTotalScore() {
         return this.totalScore;
@@ -68,7 +147,17 @@ public class GameManager implements GameEngine {
 
     @Override
     public GameMemento saveMemento() {
-        return new GameMemento(this.level.copy(), this.totalScore, this.currNumLvl, this.level.getHeroY());
+        SnapshotEvent event = SnapshotEvent.beginIfEnabled("save");
+
+        GameMemento memento = new GameMemento(this.level.copy(), this.totalScore, this.currNumLvl, this.level.getHeroY());
+
+        if (event != null) {
+            event.level = this.level.getSource();
+            event.entities = this.level.getEntities().size();
+            event.commit();
+        }
+
+        return memento;
     }
 
     @Override
@@ -78,6 +167,8 @@ public class GameManager implements GameEngine {
             return;
         }
 
+        SnapshotEvent event = SnapshotEvent.beginIfEnabled("load");
+
         boolean up = false;
         if(this.level.getHero().upgraded()){
             up = true;
@@ -94,6 +185,17 @@ public class GameManager implements GameEngine {
 
         this.totalScore = game.getTotalScore();
         this.currNumLvl = game.getCurrNumLvl();
+        this.status = Status.RUNNING; //the saved level is always still playing
+
+        if (this.prefetchedIndex != this.currNumLvl) {
+            prefetchNextLevel();
+        }
+
+        if (event != null) {
+            event.level = this.level.getSource();
+            event.entities = this.level.getEntities().size();
+            event.commit();
+        }
     }
 
     @Override
@@ -123,6 +225,9 @@ public class GameManager implements GameEngine {
 
     @Override
     public void tick() {
+        if (!this.reloaded.isEmpty()) {
+            applyReloads();
+        }
         this.level.tick();
     }
 
@@ -133,17 +238,173 @@ public class GameManager implements GameEngine {
 
     @Override
     public void reset() {
+        LevelTransitionEvent event = LevelTransitionEvent.beginIfEnabled("reset", this.level.getSource());
+
         long score = this.level.getScore();
         long lives = this.level.getLives();
-        this.level = LevelBuilderImpl.generateFromFile(this.level.getSource(), this);
+        this.level = loadLevel(this.level.getSource());
         this.level.setScore(score); //Score does not change after reset
         this.level.setLives(lives); //Lives does not change after reset
+
+        if (event != null) {
+            event.to = this.level.getSource();
+            event.commit();
+        }
     }
 
     @Override
     public void endGame() {
+        this.status = Status.LOST;
         this.totalScore += this.level.getScore();
-        this.level.getEntities().add(new Over(this.level.getHeroX() - 200, this.level.getHeroY() - 200));
+        this.level.addEntity(new Over(this.level.getHeroX() - 200, this.level.getHeroY() - 200));
+    }
+
+    /**
+     * Checks whether a file is one of the levels of this game.
+     * @param file The path of the file
+     * @return True if the file is in the list of levels
+     */
+    public boolean usesLevel(String file) {
+        return levelName(file) != null;
+    }
+
+    /**
+     * Replaces a level with a new version of it, such as after its file was edited.
+     * If it is the level being played, the hero keeps their position (unless that is
+     * now inside a solid), score, time and lives. Takes effect at the start of the
+     * next tick, and can be called from any thread.
+     * @param file The path of the level file
+     * @param template The new version of the level
+     */
+    public void reloadLevel(String file, LevelTemplate template) {
+        String name = levelName(file);
+        if (name != null) {
+            this.reloaded.put(name, template);
+        }
+    }
+
+    /**
+     * Swaps in the levels passed to reloadLevel.
+     */
+    private void applyReloads() {
+        for (Map.Entry<String, LevelTemplate> entry : this.reloaded.entrySet()) {
+            String file = entry.getKey();
+            LevelTemplate template = entry.getValue();
+            // A newer version that arrived meanwhile is left for the next tick
+            this.reloaded.remove(file, template);
+
+            this.templates.put(file, template);
+            if (this.prefetched != null && this.levelFileNames.get(this.prefetchedIndex).equals(file)) {
+                prefetchNextLevel();
+            }
+
+            if (this.status == Status.RUNNING && this.level.getSource().equals(file)) {
+                LevelTransitionEvent event = LevelTransitionEvent.beginIfEnabled("reload", file);
+
+                Level old = this.level;
+
+                // Made around the hero's old position, as only the chunks there have their solids loaded
+                this.level = template.instantiate(this, Math.min(old.getHeroX(), template.getWidth()));
+                Controllable hero = this.level.getHero();
+                hero.setY(old.getHeroY());
+                if (this.level.getStaticSolids().collides(hero)) {
+                    this.level = template.instantiate(this);
+                    hero = this.level.getHero();
+                }
+                hero.setUpgrade(old.getHero().upgraded());
+
+                this.level.setScore(old.getScore());
+                this.level.setTime(old.getTime());
+                this.level.setLives(old.getLives());
+
+                if (event != null) {
+                    event.to = file;
+                    event.commit();
+                }
+            }
+        }
+    }
+
+    /**
+     * Finds the entry in the list of levels for a file.
+     * @param file The path of the file, which may be written differently to the list
+     * @return The entry, or null if the file isn't one of the levels
+     */
+    private String levelName(String file) {
+        Path path = Paths.get(file).toAbsolutePath().normalize();
+        for (String name : this.levelFileNames) {
+            if (Paths.get(name).toAbsolutePath().normalize().equals(path)) {
+                return name;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Creates a fresh copy of a level, reading its file only if it isn't already cached.
+     * @param file The level file
+     * @return The new level
+     */
+    private Level loadLevel(String file) {
+        LevelTemplate template = this.templates.get(file);
+        if (template == null) {
+            template = LevelBuilderImpl.templateFromFile(file);
+            if (template == null) {
+                return null;
+            }
+            this.templates.put(file, template);
+        }
+        return template.instantiate(this);
+    }
+
+    /**
+     * Starts loading the level after the current one in the background.
+     */
+    private void prefetchNextLevel() {
+        if (this.prefetched != null) {
+            this.prefetched.cancel(false);
+        }
+        this.prefetchedIndex = this.currNumLvl;
+
+        if (this.currNumLvl >= this.numLvls) {
+            this.prefetched = null;
+            return;
+        }
+
+        String file = this.levelFileNames.get(this.currNumLvl);
+        LevelTemplate cached = this.templates.get(file);
+
+        this.prefetched = PREFETCHER.submit(() -> {
+            LevelTemplate template = cached != null ? cached : LevelBuilderImpl.templateFromFile(file);
+            return new Prefetched(template, template == null ? null : template.instantiate(this));
+        });
+    }
+
+    /**
+     * Gets the level at currNumLvl from the background load, waiting for it if
+     * it hasn't finished, or loads it directly if it wasn't prefetched.
+     * @return The new level
+     */
+    private Level takePrefetchedLevel() {
+        String file = this.levelFileNames.get(this.currNumLvl);
+        Future<Prefetched> future = this.prefetched;
+        this.prefetched = null;
+
+        if (future != null && this.prefetchedIndex == this.currNumLvl) {
+            try {
+                Prefetched next = future.get();
+                if (next.level != null) {
+                    this.templates.put(file, next.template);
+                    return next.level;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException | CancellationException e) {
+                // Fall through and load the level here
+            }
+        }
+
+        return loadLevel(file);
     }
 
     /**
@@ -152,7 +413,7 @@ public class GameManager implements GameEngine {
      * @return The list of level names
      */
     @SuppressWarnings("unchecked")
-    private List<String> readConfigFile(String config) {
+    private static List<String> readConfigFile(String config) {
 
         List<String> res = new ArrayList<String>();
 
@@ -184,4 +445,16 @@ public class GameManager implements GameEngine {
         return res;
     }
 
-}
\ No newline at end of file
+    /**
+     * A level loaded in the background, and the template it was made from.
+     */
+    private static class Prefetched {
+        private final LevelTemplate template;
+        private final Level level;
+
+        Prefetched(LevelTemplate template, Level level) {
+            this.template = template;
+            this.level = level;
+        }
+    }
+}
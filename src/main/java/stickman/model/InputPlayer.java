@@ -0,0 +1,176 @@
+package stickman.model;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Feeds a fixed sequence of commands into a GameEngine, each at a given tick.
+ * Holds its own saved game so SAVE and LOAD commands work without a window.
+ */
+public class InputPlayer {
+
+    /**
+     * The tick each command is applied before, in ascending order.
+     */
+    private final long[] ticks;
+
+    /**
+     * The commands to apply.
+     */
+    private final Command[] commands;
+
+    /**
+     * The position of the next command to apply.
+     */
+    private int next;
+
+    /**
+     * The most recently saved game.
+     */
+    private GameMemento saved;
+
+    /**
+     * Creates a new InputPlayer object.
+     * @param ticks The tick of each command, in ascending order
+     * @param commands The commands to apply
+     */
+    public InputPlayer(long[] ticks, Command[] commands) {
+        if (ticks.length != commands.length) {
+            throw new IllegalArgumentException("Expected one tick per command");
+        }
+        for (int i = 1; i < ticks.length; i++) {
+            if (ticks[i] < ticks[i - 1]) {
+                throw new IllegalArgumentException("Commands must be in tick order");
+            }
+        }
+        this.ticks = ticks;
+        this.commands = commands;
+    }
+
+    /**
+     * Parses a script of comma separated "tick:command" entries,
+     * e.g. "0:right, 120:jump, 300:shoot".
+     * @param script The script to parse
+     * @return The corresponding InputPlayer
+     * @throws IllegalArgumentException If an entry is malformed
+     */
+    public static InputPlayer parse(String script) {
+        List<Long> ticks = new ArrayList<>();
+        List<Command> commands = new ArrayList<>();
+
+        for (String entry : script.split("[,\\n]")) {
+            if (entry.isBlank()) {
+                continue;
+            }
+            String[] parts = entry.split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Expected tick:command but found '" + entry.trim() + "'");
+            }
+            ticks.add(Long.parseLong(parts[0].trim()));
+            commands.add(Command.parse(parts[1]));
+        }
+
+        long[] tickArray = new long[ticks.size()];
+        for (int i = 0; i < tickArray.length; i++) {
+            tickArray[i] = ticks.get(i);
+        }
+        return new InputPlayer(tickArray, commands.toArray(new Command[0]));
+    }
+
+    /**
+     * Reads a file written by InputRecorder.
+     * @param file The file to read
+     * @return The corresponding InputPlayer
+     * @throws IOException If the file can't be read or isn't a recording
+     */
+    public static InputPlayer read(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != InputRecorder.MAGIC) {
+                throw new IOException(file + " is not an input recording");
+            }
+            int version = in.readUnsignedByte();
+            if (version != InputRecorder.VERSION) {
+                throw new IOException(file + " has unsupported version " + version);
+            }
+
+            Command[] values = Command.values();
+            long[] ticks = new long[64];
+            Command[] commands = new Command[64];
+            int count = 0;
+            long tick = 0;
+
+            int b;
+            while ((b = in.read()) >= 0) {
+                // Read the rest of the varint
+                long entry = b & 0x7F;
+                for (int shift = 7; (b & 0x80) != 0; shift += 7) {
+                    b = in.read();
+                    if (b < 0) {
+                        throw new EOFException(file + " ends part way through a command");
+                    }
+                    entry |= (long) (b & 0x7F) << shift;
+                }
+
+                int ordinal = (int) (entry & ((1 << InputRecorder.COMMAND_BITS) - 1));
+                if (ordinal >= values.length) {
+                    throw new IOException(file + " contains unknown command " + ordinal);
+                }
+                tick += entry >>> InputRecorder.COMMAND_BITS;
+
+                if (count == ticks.length) {
+                    ticks = Arrays.copyOf(ticks, count * 2);
+                    commands = Arrays.copyOf(commands, count * 2);
+                }
+                ticks[count] = tick;
+                commands[count] = values[ordinal];
+                count++;
+            }
+
+            return new InputPlayer(Arrays.copyOf(ticks, count), Arrays.copyOf(commands, count));
+        }
+    }
+
+    /**
+     * Applies every command scheduled at or before the given tick that hasn't been applied yet.
+     * @param model The GameEngine to send the commands to
+     * @param tick The number of ticks the engine has run
+     */
+    public void applyUpTo(GameEngine model, long tick) {
+        while (next < ticks.length && ticks[next] <= tick) {
+            apply(model, commands[next]);
+            next++;
+        }
+    }
+
+    /**
+     * Returns true once every command has been applied.
+     * @return Whether the script has finished
+     */
+    public boolean isFinished() {
+        return next >= ticks.length;
+    }
+
+    /**
+     * Sends a single command to the engine.
+     * @param model The GameEngine to send the command to
+     * @param command The command to send
+     */
+    private void apply(GameEngine model, Command command) {
+        switch (command) {
+            case JUMP: model.jump(); break;
+            case LEFT: model.moveLeft(); break;
+            case RIGHT: model.moveRight(); break;
+            case STOP: model.stopMoving(); break;
+            case SHOOT: model.shoot(); break;
+            case SAVE: saved = model.saveMemento(); break;
+            case LOAD: model.loadMemento(saved); break;
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package stickman.model;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Wraps a GameEngine and writes every command sent to it to a file, along with
+ * the number of ticks the engine had run when it arrived. The file can be played
+ * back with InputPlayer.read to repeat the session exactly.
+ *
+ * The tick count covers the whole game, as each level restarts its own count.
+ * The file starts with MAGIC and VERSION, followed by one varint per command
+ * holding (ticks since the previous command &lt;&lt; 3) | command ordinal.
+ */
+public class InputRecorder extends GameEngineDecorator implements Closeable {
+
+    /**
+     * The bytes every input file starts with.
+     */
+    static final int MAGIC = 0x53544b49; // "STKI"
+
+    /**
+     * The version of the file format.
+     */
+    static final int VERSION = 1;
+
+    /**
+     * The number of low bits of each entry holding the command.
+     */
+    static final int COMMAND_BITS = 3;
+
+    /**
+     * The file being written.
+     */
+    private final DataOutputStream out;
+
+    /**
+     * The number of ticks the engine has run.
+     */
+    private long tick;
+
+    /**
+     * The tick of the last recorded command.
+     */
+    private long lastTick;
+
+    /**
+     * Creates a new InputRecorder object, replacing any existing file.
+     * @param model The GameEngine to record
+     * @param file The file to write the commands to
+     * @throws IOException If the file can't be created
+     */
+    public InputRecorder(GameEngine model, Path file) throws IOException {
+        super(model);
+        this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)));
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+    }
+
+    @Override
+    public void tick() {
+        super.tick();
+        tick++;
+    }
+
+    @Override
+    public boolean jump() {
+        record(Command.JUMP);
+        return super.jump();
+    }
+
+    @Override
+    public boolean moveLeft() {
+        record(Command.LEFT);
+        return super.moveLeft();
+    }
+
+    @Override
+    public boolean moveRight() {
+        record(Command.RIGHT);
+        return super.moveRight();
+    }
+
+    @Override
+    public boolean stopMoving() {
+        record(Command.STOP);
+        return super.stopMoving();
+    }
+
+    @Override
+    public void shoot() {
+        record(Command.SHOOT);
+        super.shoot();
+    }
+
+    @Override
+    public GameMemento saveMemento() {
+        record(Command.SAVE);
+        return super.saveMemento();
+    }
+
+    @Override
+    public void loadMemento(GameMemento game) {
+        record(Command.LOAD);
+        super.loadMemento(game);
+    }
+
+    /**
+     * Flushes and closes the file.
+     * @throws IOException If the file can't be written
+     */
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    /**
+     * Writes a command at the current tick. Flushed straight away so a crash doesn't lose the session.
+     */
+    private void record(Command command) {
+        try {
+            long entry = ((tick - lastTick) << COMMAND_BITS) | command.ordinal();
+            while ((entry & ~0x7FL) != 0) {
+                out.writeByte((int) (entry & 0x7F) | 0x80);
+                entry >>>= 7;
+            }
+            out.writeByte((int) entry);
+            out.flush();
+            lastTick = tick;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
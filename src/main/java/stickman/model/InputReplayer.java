@@ -0,0 +1,69 @@
+package stickman.model;
+
+/**
+ * Wraps a GameEngine and feeds it the commands from an InputPlayer, each before
+ * the tick it was recorded at. Commands from anywhere else (such as the keyboard)
+ * are ignored, so the replay can't drift from the recording.
+ */
+public class InputReplayer extends GameEngineDecorator {
+
+    /**
+     * The commands to replay.
+     */
+    private final InputPlayer player;
+
+    /**
+     * The number of ticks the engine has run.
+     */
+    private long tick;
+
+    /**
+     * Creates a new InputReplayer object.
+     * @param model The GameEngine to replay into
+     * @param player The commands to replay
+     */
+    public InputReplayer(GameEngine model, InputPlayer player) {
+        super(model);
+        this.player = player;
+    }
+
+    @Override
+    public void tick() {
+        player.applyUpTo(model, tick);
+        super.tick();
+        tick++;
+    }
+
+    @Override
+    public boolean jump() {
+        return false;
+    }
+
+    @Override
+    public boolean moveLeft() {
+        return false;
+    }
+
+    @Override
+    public boolean moveRight() {
+        return false;
+    }
+
+    @Override
+    public boolean stopMoving() {
+        return false;
+    }
+
+    @Override
+    public void shoot() {
+    }
+
+    @Override
+    public GameMemento saveMemento() {
+        return null;
+    }
+
+    @Override
+    public void loadMemento(GameMemento game) {
+    }
+}
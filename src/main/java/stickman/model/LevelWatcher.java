@@ -0,0 +1,106 @@
+package stickman.model;
+
+import stickman.level.LevelBuilderImpl;
+import stickman.level.LevelTemplate;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Development aid that watches the level directory and reloads a level as soon
+ * as its file is saved, without restarting the game. Files are parsed on the
+ * watcher's own thread and handed to GameManager.reloadLevel, which swaps them
+ * in at the start of the next tick. Files that fail to parse are reported and
+ * otherwise ignored, so the game keeps running on the last good version.
+ */
+public class LevelWatcher implements Closeable {
+
+    /**
+     * How long to wait after a change for more changes, as editors often write a
+     * file in several steps.
+     */
+    private static final long SETTLE_MILLIS = 100;
+
+    private final Path directory;
+    private final GameManager model;
+    private final WatchService watchService;
+    private final Thread thread;
+
+    /**
+     * Starts watching a directory of levels.
+     * @param directory The directory holding the level files
+     * @param model The GameManager to reload levels in
+     * @throws IOException If the directory can't be watched
+     */
+    public LevelWatcher(Path directory, GameManager model) throws IOException {
+        this.directory = directory;
+        this.model = model;
+        this.watchService = directory.getFileSystem().newWatchService();
+        directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+
+        this.thread = new Thread(this::watch, "level-watcher");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * Waits for changes and reloads the changed levels, until closed.
+     */
+    private void watch() {
+        try {
+            while (true) {
+                Set<Path> changed = new LinkedHashSet<>();
+                WatchKey key = watchService.take();
+                do {
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        if (event.context() instanceof Path) {
+                            changed.add(directory.resolve((Path) event.context()));
+                        }
+                    }
+                    key.reset();
+                    key = watchService.poll(SETTLE_MILLIS, TimeUnit.MILLISECONDS);
+                } while (key != null);
+
+                for (Path file : changed) {
+                    reload(file);
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Closed
+        }
+    }
+
+    /**
+     * Parses a changed file and passes it on, if it is one of the game's levels.
+     */
+    private void reload(Path file) {
+        String name = file.toString();
+        if (!model.usesLevel(name)) {
+            return;
+        }
+
+        LevelTemplate template = LevelBuilderImpl.templateFromFile(name);
+        if (template != null) {
+            System.out.println("Reloaded " + name);
+            model.reloadLevel(name, template);
+        }
+    }
+
+    /**
+     * Stops watching the directory.
+     */
+    @Override
+    public void close() throws IOException {
+        watchService.close();
+        thread.interrupt();
+    }
+}
@@ -0,0 +1,127 @@
+package stickman.perf;
+
+import java.util.Arrays;
+
+/**
+ * A fixed-size histogram of non-negative long values (such as durations in nanoseconds).
+ * Values are counted in logarithmic buckets: each power of two is split into 16 buckets,
+ * so any value is within about 6% of its bucket's bounds. Recording never allocates.
+ * Not thread-safe; reading while another thread records gives approximate results.
+ */
+public class Histogram {
+
+    /**
+     * The number of bits of each value kept below its highest set bit.
+     */
+    private static final int SUB_BUCKET_BITS = 4;
+
+    /**
+     * The number of buckets each power of two is split into.
+     */
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    /**
+     * Enough buckets for every non-negative long.
+     */
+    private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final long[] counts = new long[BUCKETS];
+    private long count;
+    private long max;
+    private long total;
+
+    /**
+     * Adds a value to the histogram. Negative values are counted as zero.
+     * @param value The value to add
+     */
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        counts[bucket(value)]++;
+        count++;
+        total += value;
+        if (value > max) {
+            max = value;
+        }
+    }
+
+    /**
+     * Gets the number of values recorded.
+     * @return The number of values
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Gets the largest value recorded, or 0 if there are none.
+     * @return The largest value
+     */
+    public long getMax() {
+        return max;
+    }
+
+    /**
+     * Gets the mean of the values recorded, or 0 if there are none.
+     * @return The mean value
+     */
+    public double getMean() {
+        return count == 0 ? 0 : (double) total / count;
+    }
+
+    /**
+     * Gets an upper bound for the value at the given percentile, e.g. 0.99 for p99.
+     * @param quantile The fraction of values that should be at or below the result, between 0 and 1
+     * @return The upper bound of the bucket holding that value, or 0 if there are no values
+     */
+    public long getPercentile(double quantile) {
+        if (count == 0) {
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil(quantile * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= target) {
+                return Math.min(upperBound(i), max);
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Removes every value from the histogram.
+     */
+    public void reset() {
+        Arrays.fill(counts, 0);
+        count = 0;
+        max = 0;
+        total = 0;
+    }
+
+    /**
+     * Finds the bucket holding a value.
+     */
+    private static int bucket(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int highestBit = 63 - Long.numberOfLeadingZeros(value);
+        int shift = highestBit - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift) & (SUB_BUCKETS - 1);
+        return (shift + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * Gets the largest value that falls in a bucket.
+     */
+    private static long upperBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        long lower = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+        return lower + (1L << shift) - 1;
+    }
+}
@@ -0,0 +1,48 @@
+package stickman.perf;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight Recorder event for reading a level file and building the level.
+ * Disabled by default; enable "stickman.LevelLoad" in the recording settings.
+ */
+@Name("stickman.LevelLoad")
+@Label("Level Load")
+@Category("Stickman")
+@Description("A level built from a level file")
+@Enabled(false)
+public class LevelLoadEvent extends Event {
+
+    @Label("File")
+    public String file;
+
+    @Label("Entities")
+    public int entities;
+
+    @Label("Parse Time")
+    @Timespan(Timespan.NANOSECONDS)
+    public long parseTime;
+
+    /**
+     * Starts a level load event if one is being recorded.
+     * @return The started event, or null if Flight Recorder isn't recording it
+     */
+    public static LevelLoadEvent beginIfEnabled() {
+        if (!FlightRecorder.isInitialized()) {
+            return null;
+        }
+        LevelLoadEvent event = new LevelLoadEvent();
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.begin();
+        return event;
+    }
+}
@@ -0,0 +1,51 @@
+package stickman.perf;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event for moving to the next level, restarting the current one or
+ * reloading it after its file was edited.
+ * Disabled by default; enable "stickman.LevelTransition" in the recording settings.
+ */
+@Name("stickman.LevelTransition")
+@Label("Level Transition")
+@Category("Stickman")
+@Description("Moving to the next level, restarting the level after losing a life, or reloading an edited level")
+@Enabled(false)
+public class LevelTransitionEvent extends Event {
+
+    @Label("Kind")
+    public String kind;
+
+    @Label("From")
+    public String from;
+
+    @Label("To")
+    public String to;
+
+    /**
+     * Starts a level transition event if one is being recorded.
+     * @param kind "next level", "reset" or "reload"
+     * @param from The level being left
+     * @return The started event, or null if Flight Recorder isn't recording it
+     */
+    public static LevelTransitionEvent beginIfEnabled(String kind, String from) {
+        if (!FlightRecorder.isInitialized()) {
+            return null;
+        }
+        LevelTransitionEvent event = new LevelTransitionEvent();
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.kind = kind;
+        event.from = from;
+        event.begin();
+        return event;
+    }
+}
@@ -0,0 +1,43 @@
+package stickman.perf;
+
+/**
+ * The parts of a tick and a frame timed by the TickProfiler.
+ */
+public enum Phase {
+
+    /**
+     * Moving every entity (LevelManager.tick).
+     */
+    MOVE,
+
+    /**
+     * Hero, bullet and solid collisions (LevelManager.manageCollisions).
+     */
+    COLLISIONS,
+
+    /**
+     * Removing inactive entities (LevelManager.clearOutInactive).
+     */
+    CLEANUP,
+
+    /**
+     * Updating the time and score (LevelManager.tick).
+     */
+    SCORE,
+
+    /**
+     * The whole of LevelManager.tick.
+     */
+    TICK,
+
+    /**
+     * Matching entity views to entities and updating them, or drawing entities
+     * onto the canvas with the canvas renderer (GameWindow.draw).
+     */
+    VIEW_SYNC,
+
+    /**
+     * Drawing the score, time and lives text (GameWindow.draw).
+     */
+    HUD
+}
@@ -0,0 +1,48 @@
+package stickman.perf;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event for saving or loading a GameMemento.
+ * Disabled by default; enable "stickman.Snapshot" in the recording settings.
+ */
+@Name("stickman.Snapshot")
+@Label("Snapshot")
+@Category("Stickman")
+@Description("A quicksave or quickload")
+@Enabled(false)
+public class SnapshotEvent extends Event {
+
+    @Label("Operation")
+    public String operation;
+
+    @Label("Level")
+    public String level;
+
+    @Label("Entities")
+    public int entities;
+
+    /**
+     * Starts a snapshot event if one is being recorded.
+     * @param operation "save" or "load"
+     * @return The started event, or null if Flight Recorder isn't recording it
+     */
+    public static SnapshotEvent beginIfEnabled(String operation) {
+        if (!FlightRecorder.isInitialized()) {
+            return null;
+        }
+        SnapshotEvent event = new SnapshotEvent();
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.operation = operation;
+        event.begin();
+        return event;
+    }
+}
@@ -0,0 +1,66 @@
+package stickman.perf;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight Recorder event for one LevelManager.tick, with entity counts and the time spent in each phase.
+ * Disabled by default; enable "stickman.Tick" in the recording settings.
+ */
+@Name("stickman.Tick")
+@Label("Tick")
+@Category("Stickman")
+@Description("One update of the current level")
+@Enabled(false)
+public class TickEvent extends Event {
+
+    @Label("Level")
+    public String level;
+
+    @Label("Entities")
+    public int entities;
+
+    @Label("Moving Entities")
+    public int movingEntities;
+
+    @Label("Projectiles")
+    public int projectiles;
+
+    @Label("Move")
+    @Timespan(Timespan.NANOSECONDS)
+    public long move;
+
+    @Label("Collisions")
+    @Timespan(Timespan.NANOSECONDS)
+    public long collisions;
+
+    @Label("Cleanup")
+    @Timespan(Timespan.NANOSECONDS)
+    public long cleanup;
+
+    @Label("Score")
+    @Timespan(Timespan.NANOSECONDS)
+    public long score;
+
+    /**
+     * Starts a tick event if one is being recorded.
+     * @return The started event, or null if Flight Recorder isn't recording it
+     */
+    public static TickEvent beginIfEnabled() {
+        if (!FlightRecorder.isInitialized()) {
+            return null;
+        }
+        TickEvent event = new TickEvent();
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.begin();
+        return event;
+    }
+}
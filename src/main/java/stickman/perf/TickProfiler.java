@@ -0,0 +1,143 @@
+package stickman.perf;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Times each phase of the game loop into a Histogram per Phase. Disabled by default;
+ * when disabled every call is a single branch, so the timing calls can stay in the
+ * game loop. Enable at startup with -Dstickman.profile=true, which also prints a
+ * report when the program exits, or at any time with setEnabled.
+ *
+ * Timing a tick looks like:
+ * <pre>
+ *     long t = TickProfiler.start();
+ *     moveEverything();
+ *     t = TickProfiler.lap(Phase.MOVE, t);
+ *     checkCollisions();
+ *     t = TickProfiler.lap(Phase.COLLISIONS, t);
+ * </pre>
+ */
+public final class TickProfiler {
+
+    /**
+     * The system property that enables profiling at startup.
+     */
+    public static final String PROPERTY = "stickman.profile";
+
+    /**
+     * The histogram for each phase, in nanoseconds.
+     */
+    private static final Map<Phase, Histogram> histograms = new EnumMap<>(Phase.class);
+
+    /**
+     * The histograms by phase ordinal, so recording doesn't go through the map.
+     */
+    private static final Histogram[] byOrdinal = new Histogram[Phase.values().length];
+
+    private static volatile boolean enabled;
+
+    static {
+        for (Phase phase : Phase.values()) {
+            Histogram histogram = new Histogram();
+            histograms.put(phase, histogram);
+            byOrdinal[phase.ordinal()] = histogram;
+        }
+
+        if (Boolean.getBoolean(PROPERTY)) {
+            enabled = true;
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> System.err.print(report()), "tick-profiler-report"));
+        }
+    }
+
+    private TickProfiler() {
+    }
+
+    /**
+     * Returns true if timings are being recorded.
+     * @return Whether the profiler is enabled
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Turns recording on or off. Existing timings are kept.
+     * @param on Whether to record timings
+     */
+    public static void setEnabled(boolean on) {
+        enabled = on;
+    }
+
+    /**
+     * Starts timing a phase.
+     * @return The current time, or 0 if the profiler is disabled
+     */
+    public static long start() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Starts timing a phase, even if the profiler is disabled when force is true.
+     * Used by callers that need the timings for something else, such as a TickEvent.
+     * @param force Whether to time the phase regardless
+     * @return The current time, or 0 if the phase isn't being timed
+     */
+    public static long start(boolean force) {
+        return enabled || force ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Records the time since start against a phase (if the profiler is enabled), and starts
+     * timing the next phase. Does nothing if start is 0 (the phase wasn't being timed).
+     * @param phase The phase that just finished
+     * @param start The value returned by start or the previous lap
+     * @return The current time, or 0 if the profiler is disabled
+     */
+    public static long lap(Phase phase, long start) {
+        if (start == 0) {
+            return 0;
+        }
+        long now = System.nanoTime();
+        if (enabled) {
+            byOrdinal[phase.ordinal()].record(now - start);
+        }
+        return now;
+    }
+
+    /**
+     * Gets the timings recorded for a phase, in nanoseconds.
+     * @param phase The phase
+     * @return The histogram of timings for that phase
+     */
+    public static Histogram get(Phase phase) {
+        return histograms.get(phase);
+    }
+
+    /**
+     * Removes every recorded timing.
+     */
+    public static void reset() {
+        for (Histogram histogram : byOrdinal) {
+            histogram.reset();
+        }
+    }
+
+    /**
+     * Formats the count, p50, p99 and max of every phase that has timings, in microseconds.
+     * @return The report, one line per phase
+     */
+    public static String report() {
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("%-12s %10s %10s %10s %10s%n", "Phase", "Count", "p50 (us)", "p99 (us)", "Max (us)"));
+        for (Map.Entry<Phase, Histogram> entry : histograms.entrySet()) {
+            Histogram histogram = entry.getValue();
+            if (histogram.getCount() == 0) {
+                continue;
+            }
+            report.append(String.format("%-12s %10d %10.1f %10.1f %10.1f%n", entry.getKey(), histogram.getCount(),
+                    histogram.getPercentile(0.5) / 1e3, histogram.getPercentile(0.99) / 1e3, histogram.getMax() / 1e3));
+        }
+        return report.toString();
+    }
+}
@@ -0,0 +1,173 @@
+package stickman.view;
+
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.Image;
+import javafx.scene.layout.Pane;
+import stickman.entity.Entity;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Draws every entity onto a single canvas with drawImage each frame, so the scene
+ * graph holds one node however many entities are on screen. Entities are drawn a
+ * layer at a time, back to front, matching the view order of SceneGraphRenderer.
+ */
+class CanvasRenderer implements EntityRenderer {
+
+    /**
+     * The layers in the order they are drawn, from the back.
+     */
+    private static final Entity.Layer[] LAYERS = Entity.Layer.values();
+
+    /**
+     * Behind the HUD, in front of the background.
+     */
+    private static final double VIEW_ORDER = 500.0;
+
+    private final Canvas canvas;
+    private final GraphicsContext gc;
+
+    /**
+     * The sprite of each entity on or near the screen, by entity identity.
+     */
+    private final Map<Entity, Sprite> sprites = new IdentityHashMap<>();
+
+    /**
+     * Sprites no longer on screen, kept to be reused by entities that appear.
+     */
+    private final ArrayDeque<Sprite> spare = new ArrayDeque<>();
+
+    /**
+     * The sprites to draw this frame, by layer.
+     */
+    private final List<List<Sprite>> layers = new ArrayList<>();
+
+    /**
+     * Counts frames, to tell which sprites were drawn in the current one.
+     */
+    private long frame;
+
+    /**
+     * The camera and interpolation of the current frame.
+     */
+    private double xViewportOffset;
+    private double yViewportOffset;
+    private double alpha;
+
+    /**
+     * Creates a new CanvasRenderer object and adds its canvas to the window.
+     * @param pane The pane of the window
+     * @param width The width of the screen
+     * @param height The height of the screen
+     */
+    CanvasRenderer(Pane pane, int width, int height) {
+        this.canvas = new Canvas(width, height);
+        this.canvas.setViewOrder(VIEW_ORDER);
+        this.gc = canvas.getGraphicsContext2D();
+        pane.getChildren().add(canvas);
+
+        for (int i = 0; i < LAYERS.length; i++) {
+            layers.add(new ArrayList<>());
+        }
+    }
+
+    @Override
+    public void snapshot() {
+        for (Sprite sprite : sprites.values()) {
+            sprite.previousX = sprite.entity.getXPos();
+            sprite.previousY = sprite.entity.getYPos();
+        }
+    }
+
+    @Override
+    public void begin(double xViewportOffset, double yViewportOffset, double alpha) {
+        this.xViewportOffset = xViewportOffset;
+        this.yViewportOffset = yViewportOffset;
+        this.alpha = alpha;
+        frame++;
+    }
+
+    @Override
+    public void draw(Entity entity) {
+        Sprite sprite = sprites.get(entity);
+        if (sprite == null) {
+            sprite = spare.isEmpty() ? new Sprite() : spare.pop();
+            sprite.bind(entity);
+            sprites.put(entity, sprite);
+        }
+        sprite.frame = frame;
+        layers.get(entity.getLayer().ordinal()).add(sprite);
+    }
+
+    @Override
+    public void end() {
+        for (Iterator<Sprite> it = sprites.values().iterator(); it.hasNext(); ) {
+            Sprite sprite = it.next();
+            if (sprite.frame != frame) {
+                sprite.entity = null; // Don't keep old levels alive
+                spare.push(sprite);
+                it.remove();
+            }
+        }
+
+        gc.clearRect(0, 0, canvas.getWidth(), canvas.getHeight());
+        for (List<Sprite> layer : layers) {
+            for (int i = 0; i < layer.size(); i++) {
+                layer.get(i).draw();
+            }
+            layer.clear();
+        }
+    }
+
+    @Override
+    public int size() {
+        return sprites.size();
+    }
+
+    /**
+     * An entity on screen, with the image it was last drawn with and its position at the last snapshot.
+     */
+    private class Sprite {
+        private Entity entity;
+        private long frame;
+        private double previousX;
+        private double previousY;
+
+        private Image image;
+        private String imagePath;
+        private double width;
+        private double height;
+
+        /**
+         * Starts drawing an entity with this sprite.
+         */
+        void bind(Entity entity) {
+            this.entity = entity;
+            this.previousX = entity.getXPos();
+            this.previousY = entity.getYPos();
+        }
+
+        /**
+         * Draws the entity interpolated between its snapshot and current position,
+         * fetching its image again only if its sprite or size changed.
+         */
+        void draw() {
+            String newPath = entity.getImagePath();
+            if (image == null || !imagePath.equals(newPath) || width != entity.getWidth() || height != entity.getHeight()) {
+                imagePath = newPath;
+                width = entity.getWidth();
+                height = entity.getHeight();
+                image = SpriteCache.get(imagePath, width, height);
+            }
+            double x = previousX + (entity.getXPos() - previousX) * alpha;
+            double y = previousY + (entity.getYPos() - previousY) * alpha;
+            gc.drawImage(image, x - xViewportOffset, y - yViewportOffset);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package stickman.view;
+
+import javafx.scene.layout.Pane;
+import stickman.entity.Entity;
+
+/**
+ * Draws the entities of the level for GameWindow. Each frame GameWindow calls begin,
+ * then draw for every entity on or near the screen, then end.
+ */
+public interface EntityRenderer {
+
+    /**
+     * Creates a renderer by name.
+     * @param name "scenegraph" for a JavaFX node per entity, or "canvas" to draw every entity onto one canvas
+     * @param pane The pane of the window
+     * @param width The width of the screen
+     * @param height The height of the screen
+     * @return The renderer
+     */
+    static EntityRenderer create(String name, Pane pane, int width, int height) {
+        switch (name) {
+            case "scenegraph": return new SceneGraphRenderer(pane);
+            case "canvas": return new CanvasRenderer(pane, width, height);
+            default: throw new IllegalArgumentException("Unknown renderer " + name + ", expected scenegraph or canvas");
+        }
+    }
+
+    /**
+     * Records the position of every entity drawn. Called before every tick so
+     * rendering can interpolate between the last two ticks.
+     */
+    void snapshot();
+
+    /**
+     * Starts a frame.
+     * @param xViewportOffset The camera offset
+     * @param yViewportOffset The vertical camera offset
+     * @param alpha How far between the snapshot (0) and the current position (1) to draw
+     */
+    void begin(double xViewportOffset, double yViewportOffset, double alpha);
+
+    /**
+     * Draws an entity in the current frame.
+     * @param entity The entity
+     */
+    void draw(Entity entity);
+
+    /**
+     * Finishes the frame. Entities that weren't drawn this frame are forgotten.
+     */
+    void end();
+
+    /**
+     * Returns the number of entities drawn in the last frame.
+     * @return The number of entities
+     */
+    int size();
+}
@@ -9,10 +9,19 @@ import stickman.entity.Entity;
 public interface EntityView {
 
     /**
-     * Updates the x-coordinate based on the camera offset.
+     * Updates the position based on the camera offset, interpolating between
+     * the last snapshot and the entity's current position.
      * @param xViewportOffset The camera offset
+     * @param yViewportOffset The vertical camera offset
+     * @param alpha How far between the snapshot (0) and the current position (1) to draw
      */
-    void update(double xViewportOffset, double yViewportOffset);
+    void update(double xViewportOffset, double yViewportOffset, double alpha);
+
+    /**
+     * Records the entity's current position. Called before every tick so
+     * rendering can interpolate between the last two ticks.
+     */
+    void snapshot();
 
     /**
      * Checks whether the view is associated with an entity.
@@ -21,6 +30,18 @@ public interface EntityView {
      */
     boolean matchesEntity(Entity entity);
 
+    /**
+     * Returns the entity the view shows.
+     * @return The entity, or null if the view is waiting to be reused
+     */
+    Entity getEntity();
+
+    /**
+     * Makes the view show another entity, so the view and its node can be reused.
+     * @param entity The entity to show, or null to let go of the current one
+     */
+    void bind(Entity entity);
+
     /**
      * Marks the entity view for deletion.
      */
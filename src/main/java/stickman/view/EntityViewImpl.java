@@ -1,7 +1,6 @@
 package stickman.view;
 
 import javafx.scene.Node;
-import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 import stickman.entity.Entity;
 
@@ -30,6 +29,22 @@ public class EntityViewImpl implements EntityView {
      */
     private String imagePath;
 
+    /**
+     * The size the sprite was last fetched at.
+     */
+    private double width;
+    private double height;
+
+    /**
+     * The entity's x-coordinate at the last snapshot.
+     */
+    private double previousX;
+
+    /**
+     * The entity's y-coordinate at the last snapshot.
+     */
+    private double previousY;
+
     /**
      * Constructs an EntityViewImpl object.
      * @param entity The corresponding Entity
@@ -37,9 +52,14 @@ public class EntityViewImpl implements EntityView {
     EntityViewImpl(Entity entity) {
         this.entity = entity;
         this.imagePath = entity.getImagePath();
-        this.node = new ImageView(imagePath);
-        this.node.setViewOrder(getViewOrder(entity.getLayer()));
-        update(0, 0);
+        this.width = entity.getWidth();
+        this.height = entity.getHeight();
+        this.node = new ImageView(SpriteCache.get(imagePath, width, height));
+        this.node.setPreserveRatio(true);
+        this.node.setFitHeight(height);
+        this.node.setFitWidth(width);
+        bind(entity);
+        update(0, 0, 1);
     }
 
     /**
@@ -57,25 +77,50 @@ public class EntityViewImpl implements EntityView {
     }
 
     @Override
-    public void update(double xViewportOffset, double yViewportOffset) {
+    public void update(double xViewportOffset, double yViewportOffset, double alpha) {
         String newPath = entity.getImagePath();
-        if (!imagePath.equals(newPath)) {
+        if (!imagePath.equals(newPath) || width != entity.getWidth() || height != entity.getHeight()) {
             imagePath = newPath;
-            node.setImage(new Image(imagePath));
+            width = entity.getWidth();
+            height = entity.getHeight();
+            node.setImage(SpriteCache.get(imagePath, width, height));
+            node.setFitHeight(height);
+            node.setFitWidth(width);
         }
-        node.setX(entity.getXPos() - xViewportOffset);
-        node.setY(entity.getYPos() - yViewportOffset);
-        node.setFitHeight(entity.getHeight());
-        node.setFitWidth(entity.getWidth());
-        node.setPreserveRatio(true);
+        double x = previousX + (entity.getXPos() - previousX) * alpha;
+        double y = previousY + (entity.getYPos() - previousY) * alpha;
+        node.setX(x - xViewportOffset);
+        node.setY(y - yViewportOffset);
         delete = false;
     }
 
+    @Override
+    public void snapshot() {
+        previousX = entity.getXPos();
+        previousY = entity.getYPos();
+    }
+
     @Override
     public boolean matchesEntity(Entity entity) {
         return this.entity.equals(entity);
     }
 
+    @Override
+    public Entity getEntity() {
+        return this.entity;
+    }
+
+    @Override
+    public void bind(Entity entity) {
+        this.entity = entity;
+        this.delete = false;
+        if (entity != null) {
+            // The sprite and size are brought up to date by the next update
+            node.setViewOrder(getViewOrder(entity.getLayer()));
+            snapshot();
+        }
+    }
+
     @Override
     public void markForDelete() {
         this.delete = true;
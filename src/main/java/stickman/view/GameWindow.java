@@ -1,16 +1,16 @@
 package stickman.view;
 
-import javafx.animation.KeyFrame;
-import javafx.animation.Timeline;
+import javafx.animation.AnimationTimer;
 import javafx.scene.Scene;
 import javafx.scene.canvas.Canvas;
 import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.layout.Pane;
-import javafx.util.Duration;
 import stickman.entity.Entity;
+import stickman.level.Level;
 import stickman.model.GameEngine;
+import stickman.perf.Phase;
+import stickman.perf.TickProfiler;
 
-import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -28,6 +28,23 @@ public class GameWindow {
      */
     private static final double VIEWPORT_MARGIN = 280.0;
 
+    /**
+     * How far outside the screen an entity can be and still have a view, so views
+     * aren't created and dropped every frame as entities cross the edge.
+     */
+    private static final double CULL_MARGIN = 128.0;
+
+    /**
+     * The length of one simulation tick, in nanoseconds (120 ticks per second).
+     */
+    private static final long TICK_NANOS = 1_000_000_000L / 120;
+
+    /**
+     * The most ticks run in one frame. Time beyond this is dropped so a long
+     * stall doesn't leave the game permanently behind.
+     */
+    private static final int MAX_TICKS_PER_FRAME = 8;
+
     /**
      * The width of the screen.
      */
@@ -54,9 +71,9 @@ public class GameWindow {
     private GameEngine model;
 
     /**
-     * A list of all the entities' views in the Game.
+     * Draws the entities on or near the screen.
      */
-    private List<EntityView> entityViews;
+    private EntityRenderer renderer;
 
     /**
      * The background of the scene.
@@ -74,22 +91,59 @@ public class GameWindow {
     private double yViewportOffset = 0.0;
 
     private GraphicsContext gc;
+
     /**
-     * Creates a new GameWindow object.
+     * Debug information drawn beside the score, toggled with F3.
+     */
+    private final PerformanceOverlay overlay = new PerformanceOverlay();
+
+    /**
+     * Drives the game loop once per rendered frame.
+     */
+    private final AnimationTimer timer;
+
+    /**
+     * The time of the previous frame, or -1 before the first frame.
+     */
+    private long lastFrame = -1;
+
+    /**
+     * Simulation time not yet consumed by a tick, in nanoseconds.
+     */
+    private long accumulator = 0;
+
+    /**
+     * The level and hero position at the start of the most recent tick, used to interpolate the camera.
+     */
+    private Level snapshotLevel;
+    private double previousHeroX;
+    private double previousHeroY;
+
+    /**
+     * Creates a new GameWindow object that shows each entity as a node in the scene graph.
      * @param model The GameEngine of the game
      * @param width The width of the screen
      * @param height The height of the screen
      */
     public GameWindow(GameEngine model, int width, int height) {
+        this(model, width, height, "scenegraph");
+    }
+
+    /**
+     * Creates a new GameWindow object.
+     * @param model The GameEngine of the game
+     * @param width The width of the screen
+     * @param height The height of the screen
+     * @param renderer How to draw entities, as named in EntityRenderer.create
+     */
+    public GameWindow(GameEngine model, int width, int height, String renderer) {
         this.model = model;
         this.pane = new Pane();
         this.width = width;
         this.height = height;
         this.scene = new Scene(pane, width, height);
 
-        this.entityViews = new ArrayList<>();
-
-        KeyboardInputHandler keyboardInputHandler = new KeyboardInputHandler(model);
+        KeyboardInputHandler keyboardInputHandler = new KeyboardInputHandler(model, overlay);
 
         scene.setOnKeyPressed(keyboardInputHandler::handlePressed);
         scene.setOnKeyReleased(keyboardInputHandler::handleReleased);
@@ -98,9 +152,18 @@ public class GameWindow {
 
         backgroundDrawer.draw(model, pane);
 
+        this.renderer = EntityRenderer.create(renderer, pane, width, height);
+
         Canvas canvas = new Canvas(width, height);
         gc = canvas.getGraphicsContext2D();
         pane.getChildren().add(canvas);
+
+        this.timer = new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                frame(now);
+            }
+        };
     }
 
     /**
@@ -112,29 +175,70 @@ public class GameWindow {
     }
 
     /**
-     * Starts the game.
+     * Starts the game. Calling this again while running has no effect.
      */
     public void run() {
-        Timeline timeline = new Timeline(new KeyFrame(Duration.millis(17),
-                t -> this.draw()));
+        timer.start();
+    }
+
+    /**
+     * Runs as many fixed-length ticks as the elapsed time calls for, then draws
+     * the game interpolated between the last two ticks.
+     * @param now The timestamp of the current frame in nanoseconds
+     */
+    private void frame(long now) {
+        if (lastFrame < 0) {
+            lastFrame = now;
+        }
+        accumulator += now - lastFrame;
+        lastFrame = now;
+
+        int ticks = 0;
+        while (accumulator >= TICK_NANOS && ticks < MAX_TICKS_PER_FRAME) {
+            snapshot();
+            long start = overlay.isVisible() ? System.nanoTime() : 0;
+            model.tick();
+            if (start != 0) {
+                overlay.recordTick(System.nanoTime() - start);
+            }
+            accumulator -= TICK_NANOS;
+            ticks++;
+        }
+        if (ticks == MAX_TICKS_PER_FRAME) {
+            accumulator = Math.min(accumulator, TICK_NANOS);
+        }
 
-        timeline.setCycleCount(Timeline.INDEFINITE);
-        timeline.play();
+        draw((double) accumulator / TICK_NANOS);
     }
 
     /**
-     * Draws the game (and updates it).
+     * Records the position of the hero and every entity before a tick.
      */
-    private void draw() {
-        model.tick();
+    private void snapshot() {
+        snapshotLevel = model.getCurrentLevel();
+        previousHeroX = snapshotLevel.getHeroX();
+        previousHeroY = snapshotLevel.getHeroY();
 
-        List<Entity> entities = model.getCurrentLevel().getEntities();
+        renderer.snapshot();
+    }
 
-        for (EntityView entityView: entityViews) {
-            entityView.markForDelete();
+    /**
+     * Draws the game.
+     * @param alpha How far between the previous tick (0) and the latest tick (1) to draw
+     */
+    private void draw(double alpha) {
+        Level level = model.getCurrentLevel();
+        List<Entity> entities = level.getEntities();
+
+        // The camera follows the interpolated hero, unless the level changed this frame
+        double heroX = level.getHeroX();
+        double heroY = level.getHeroY();
+        if (level == snapshotLevel) {
+            heroX = previousHeroX + (heroX - previousHeroX) * alpha;
+            heroY = previousHeroY + (heroY - previousHeroY) * alpha;
         }
 
-        double heroXPos = model.getCurrentLevel().getHeroX();
+        double heroXPos = heroX;
         heroXPos -= xViewportOffset;
 
         if (heroXPos < VIEWPORT_MARGIN) {
@@ -148,7 +252,7 @@ public class GameWindow {
             xViewportOffset += heroXPos - (width - VIEWPORT_MARGIN);
         }
 
-        double heroYPos = model.getCurrentLevel().getHeroY();
+        double heroYPos = heroY;
         heroYPos -= yViewportOffset;
 
         if (heroYPos < VIEWPORT_MARGIN_VERTICAL) {
@@ -161,28 +265,17 @@ public class GameWindow {
 
         backgroundDrawer.update(xViewportOffset, yViewportOffset);
 
-        for (Entity entity: entities) {
-            boolean notFound = true;
-            for (EntityView view: entityViews) {
-                if (view.matchesEntity(entity)) {
-                    notFound = false;
-                    view.update(xViewportOffset, yViewportOffset);
-                    break;
-                }
-            }
-            if (notFound) {
-                EntityView entityView = new EntityViewImpl(entity);
-                entityViews.add(entityView);
-                pane.getChildren().add(entityView.getNode());
-            }
-        }
+        long t = TickProfiler.start();
 
-        for (EntityView entityView: entityViews) {
-            if (entityView.isMarkedForDelete()) {
-                pane.getChildren().remove(entityView.getNode());
+        renderer.begin(xViewportOffset, yViewportOffset, alpha);
+        for (int i = 0; i < entities.size(); i++) {
+            Entity entity = entities.get(i);
+            if (isNearViewport(entity)) {
+                renderer.draw(entity);
             }
         }
-        entityViews.removeIf(EntityView::isMarkedForDelete);
+        renderer.end(); // Entities that have left the screen are dropped here
+        t = TickProfiler.lap(Phase.VIEW_SYNC, t);
 
         gc.clearRect(0,0, width, height);
 
@@ -190,5 +283,19 @@ public class GameWindow {
         gc.fillText("Current score: " + model.getCurrentLevel().getScore(), 0, 30); //Current score
         gc.fillText("Time remaining: " + model.getCurrentLevel().getTime(), 0, 45); //Time elapsed
         gc.fillText("Lives Remaining: " + model.getCurrentLevel().getLives(), 0, 60); //Lives remaining
+        overlay.draw(gc, width / 2.0, lastFrame, entities, renderer.size(), scene.getRoot());
+        TickProfiler.lap(Phase.HUD, t);
+    }
+
+    /**
+     * Checks whether an entity overlaps the screen, widened by CULL_MARGIN on every side.
+     * @param entity The entity to check
+     * @return True if the entity should have a view
+     */
+    private boolean isNearViewport(Entity entity) {
+        double x = entity.getXPos() - xViewportOffset;
+        double y = entity.getYPos() - yViewportOffset;
+        return x + entity.getWidth() > -CULL_MARGIN && x < width + CULL_MARGIN
+                && y + entity.getHeight() > -CULL_MARGIN && y < height + CULL_MARGIN;
     }
 }
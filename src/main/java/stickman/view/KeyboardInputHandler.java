@@ -44,12 +44,19 @@ class KeyboardInputHandler {
 
     private GameReloader gameReloader = new GameReloader();
 
+    /**
+     * The debug overlay, shown and hidden with F3.
+     */
+    private final PerformanceOverlay overlay;
+
     /**
      * Creates a new KeyboardInputHandler object.
      * @param model The GameEngine being used
+     * @param overlay The debug overlay to toggle
      */
-    KeyboardInputHandler(GameEngine model) {
+    KeyboardInputHandler(GameEngine model, PerformanceOverlay overlay) {
         this.model = model;
+        this.overlay = overlay;
 
         URL mediaUrl = getClass().getResource("/jump.wav");
         String jumpURL = mediaUrl.toExternalForm();
@@ -69,6 +76,11 @@ class KeyboardInputHandler {
         }
         pressedKeys.add(keyEvent.getCode());
 
+        if (keyEvent.getCode().equals(KeyCode.F3)) { //Show or hide debug overlay
+            overlay.toggle();
+            return;
+        }
+
         if (keyEvent.getCode().equals(KeyCode.UP)) {
             if (model.jump()) {
                 MediaPlayer jumpPlayer = sounds.get("jump");
@@ -0,0 +1,207 @@
+package stickman.view;
+
+import javafx.scene.Node;
+import javafx.scene.Parent;
+import javafx.scene.canvas.GraphicsContext;
+import stickman.entity.Entity;
+import stickman.perf.Histogram;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Debug text drawn beside the score, showing how the game is performing: frame rate,
+ * tick times, entity and node counts, allocation rate and garbage collection.
+ * Toggled with F3. The values are only recalculated every SAMPLE_NANOS, so the
+ * overlay costs almost nothing between samples.
+ */
+class PerformanceOverlay {
+
+    /**
+     * How often the displayed values are recalculated, in nanoseconds.
+     */
+    private static final long SAMPLE_NANOS = 250_000_000L;
+
+    /**
+     * The height of each line of text.
+     */
+    private static final double LINE_HEIGHT = 15;
+
+    /**
+     * The length of a tick at 120 ticks per second, in nanoseconds.
+     */
+    private static final long TICK_BUDGET_NANOS = 1_000_000_000L / 120;
+
+    /**
+     * Whether the overlay is being shown.
+     */
+    private boolean visible = false;
+
+    /**
+     * The time taken by each tick since the last sample.
+     */
+    private final Histogram tickTimes = new Histogram();
+
+    /**
+     * The number of frames drawn since the last sample.
+     */
+    private int frames;
+
+    /**
+     * The time of the last sample, or -1 before the first.
+     */
+    private long lastSample = -1;
+
+    /**
+     * Allocation and GC totals at the last sample.
+     */
+    private long lastAllocated;
+    private long lastGcCount;
+    private long lastGcTime;
+
+    /**
+     * The lines currently being displayed.
+     */
+    private final List<String> lines = new ArrayList<>();
+
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    private final List<GarbageCollectorMXBean> collectors = ManagementFactory.getGarbageCollectorMXBeans();
+
+    /**
+     * Shows the overlay if hidden, or hides it if shown.
+     */
+    void toggle() {
+        visible = !visible;
+        // Start counting afresh, so the first sample doesn't cover the time spent hidden
+        lastSample = -1;
+        lines.clear();
+    }
+
+    /**
+     * Returns true if the overlay is being shown.
+     * @return Whether the overlay is visible
+     */
+    boolean isVisible() {
+        return visible;
+    }
+
+    /**
+     * Records how long a tick took.
+     * @param nanos The length of the tick in nanoseconds
+     */
+    void recordTick(long nanos) {
+        tickTimes.record(nanos);
+    }
+
+    /**
+     * Draws the overlay, recalculating its values if a sample is due.
+     * @param gc Where to draw the text
+     * @param x The x-coordinate of the left edge of the text
+     * @param now The timestamp of the current frame in nanoseconds
+     * @param entities The entities in the current level
+     * @param entityViews The number of entity views
+     * @param root The root of the scene graph
+     */
+    void draw(GraphicsContext gc, double x, long now, List<Entity> entities, int entityViews, Parent root) {
+        if (!visible) {
+            return;
+        }
+
+        frames++;
+        if (lastSample < 0) {
+            startSample(now);
+        } else if (now - lastSample >= SAMPLE_NANOS) {
+            sample(now, entities, entityViews, root);
+        }
+
+        for (int i = 0; i < lines.size(); i++) {
+            gc.fillText(lines.get(i), x, (i + 1) * LINE_HEIGHT);
+        }
+    }
+
+    /**
+     * Resets the counters at the start of a sample.
+     */
+    private void startSample(long now) {
+        lastSample = now;
+        frames = 0;
+        tickTimes.reset();
+        lastAllocated = allocatedBytes();
+        lastGcCount = gcCount();
+        lastGcTime = gcTime();
+    }
+
+    /**
+     * Recalculates the displayed values from the counters since the last sample.
+     */
+    private void sample(long now, List<Entity> entities, int entityViews, Parent root) {
+        double seconds = (now - lastSample) / 1e9;
+        long allocated = allocatedBytes();
+        long gcCount = gcCount();
+        long gcTime = gcTime();
+
+        lines.clear();
+        lines.add(String.format("FPS: %.0f", frames / seconds));
+        lines.add(String.format("Tick p50/p99: %.2f / %.2f ms%s", tickTimes.getPercentile(0.5) / 1e6,
+                tickTimes.getPercentile(0.99) / 1e6, tickTimes.getPercentile(0.99) > TICK_BUDGET_NANOS ? " (over budget)" : ""));
+
+        Map<String, Integer> counts = new TreeMap<>();
+        for (Entity entity : entities) {
+            counts.merge(entity.getClass().getSimpleName(), 1, Integer::sum);
+        }
+        lines.add("Entities: " + entities.size() + " " + counts);
+        lines.add("Entity views: " + entityViews + ", scene nodes: " + countNodes(root));
+
+        if (allocated >= 0) {
+            lines.add(String.format("Allocation: %.1f MB/s", (allocated - lastAllocated) / seconds / (1 << 20)));
+        }
+        lines.add(String.format("GC: %d collections, %d ms (+%d, +%d ms)", gcCount, gcTime,
+                gcCount - lastGcCount, gcTime - lastGcTime));
+
+        startSample(now);
+    }
+
+    /**
+     * Counts a node and every node below it.
+     */
+    private static int countNodes(Node node) {
+        int count = 1;
+        if (node instanceof Parent) {
+            for (Node child : ((Parent) node).getChildrenUnmodifiable()) {
+                count += countNodes(child);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns the bytes allocated so far by this thread, or -1 if the JVM can't measure it.
+     */
+    private long allocatedBytes() {
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+    private long gcCount() {
+        long total = 0;
+        for (GarbageCollectorMXBean collector : collectors) {
+            total += Math.max(0, collector.getCollectionCount());
+        }
+        return total;
+    }
+
+    private long gcTime() {
+        long total = 0;
+        for (GarbageCollectorMXBean collector : collectors) {
+            total += Math.max(0, collector.getCollectionTime());
+        }
+        return total;
+    }
+}
@@ -0,0 +1,112 @@
+package stickman.view;
+
+import javafx.scene.Node;
+import javafx.scene.layout.Pane;
+import stickman.entity.Entity;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Shows each entity as its own ImageView node in the window's pane, laid out by JavaFX.
+ */
+class SceneGraphRenderer implements EntityRenderer {
+
+    /**
+     * The pane the nodes are added to.
+     */
+    private final Pane pane;
+
+    /**
+     * The view of each entity on or near the screen, by entity identity.
+     */
+    private final Map<Entity, EntityView> entityViews = new IdentityHashMap<>();
+
+    /**
+     * Views no longer on screen, kept to be reused by entities that appear.
+     */
+    private final ViewPool viewPool = new ViewPool();
+
+    /**
+     * Scratch collections of the nodes to attach and detach in one batch each frame.
+     * The set is by identity, which allocates nothing as nodes are added.
+     */
+    private final List<Node> addedNodes = new ArrayList<>();
+    private final Set<Node> removedNodes = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    /**
+     * The camera and interpolation of the current frame.
+     */
+    private double xViewportOffset;
+    private double yViewportOffset;
+    private double alpha;
+
+    /**
+     * Creates a new SceneGraphRenderer object.
+     * @param pane The pane of the window
+     */
+    SceneGraphRenderer(Pane pane) {
+        this.pane = pane;
+    }
+
+    @Override
+    public void snapshot() {
+        for (EntityView entityView: entityViews.values()) {
+            entityView.snapshot();
+        }
+    }
+
+    @Override
+    public void begin(double xViewportOffset, double yViewportOffset, double alpha) {
+        this.xViewportOffset = xViewportOffset;
+        this.yViewportOffset = yViewportOffset;
+        this.alpha = alpha;
+
+        for (EntityView entityView: entityViews.values()) {
+            entityView.markForDelete();
+        }
+    }
+
+    @Override
+    public void draw(Entity entity) {
+        EntityView view = entityViews.get(entity);
+        if (view == null) {
+            view = viewPool.borrow(entity);
+            entityViews.put(entity, view);
+            addedNodes.add(view.getNode());
+        }
+        view.update(xViewportOffset, yViewportOffset, alpha);
+    }
+
+    @Override
+    public void end() {
+        for (Iterator<EntityView> it = entityViews.values().iterator(); it.hasNext(); ) {
+            EntityView entityView = it.next();
+            if (entityView.isMarkedForDelete()) {
+                removedNodes.add(entityView.getNode());
+                viewPool.release(entityView);
+                it.remove();
+            }
+        }
+
+        // One change each to the pane's children, rather than one per view
+        if (!removedNodes.isEmpty()) {
+            pane.getChildren().removeAll(removedNodes);
+            removedNodes.clear();
+        }
+        if (!addedNodes.isEmpty()) {
+            pane.getChildren().addAll(addedNodes);
+            addedNodes.clear();
+        }
+    }
+
+    @Override
+    public int size() {
+        return entityViews.size();
+    }
+}
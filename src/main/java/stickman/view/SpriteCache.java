@@ -0,0 +1,124 @@
+package stickman.view;
+
+import javafx.scene.image.Image;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Loads each sprite once for each size it is drawn at, and shares the Image between
+ * every view showing it, so new views (such as for a whole reloaded level) don't
+ * decode their sprites again. Sprites are decoded already scaled to the size of the
+ * entity, so large source images don't sit in memory at full size. The least
+ * recently used sprites are dropped once the cache holds more than MAX_BYTES of
+ * pixels. Only used on the JavaFX application thread.
+ */
+final class SpriteCache {
+
+    /**
+     * The most decoded pixel data, in bytes, kept in the cache.
+     */
+    private static final long MAX_BYTES = 32L << 20;
+
+    /**
+     * Decoded sprites, least recently used first.
+     */
+    private static final Map<Key, Image> IMAGES = new LinkedHashMap<>(64, 0.75f, true);
+
+    /**
+     * The total pixel data of the sprites in the cache, in bytes.
+     */
+    private static long bytes;
+
+    /**
+     * Sprites are fetched through the static methods only.
+     */
+    private SpriteCache() {
+    }
+
+    /**
+     * Gets the image for a sprite at its own size, loading it the first time.
+     * @param path The path to the sprite
+     * @return The image
+     */
+    static Image get(String path) {
+        return get(path, 0, 0);
+    }
+
+    /**
+     * Gets the image for a sprite scaled to fit within a box, keeping its aspect
+     * ratio, loading it the first time it is used at that size.
+     * @param path The path to the sprite
+     * @param width The width of the box, or 0 for the sprite's own width
+     * @param height The height of the box, or 0 for the sprite's own height
+     * @return The image
+     */
+    static Image get(String path, double width, double height) {
+        Key key = new Key(path, pixels(width), pixels(height));
+        Image image = IMAGES.get(key);
+        if (image == null) {
+            image = new Image(path, key.width, key.height, true, true);
+            IMAGES.put(key, image);
+            bytes += sizeOf(image);
+            evict();
+        }
+        return image;
+    }
+
+    /**
+     * Drops the least recently used sprites until the cache is within MAX_BYTES,
+     * always keeping the newest one. Views still showing a dropped sprite keep it.
+     */
+    private static void evict() {
+        Iterator<Image> images = IMAGES.values().iterator();
+        while (bytes > MAX_BYTES && IMAGES.size() > 1) {
+            bytes -= sizeOf(images.next());
+            images.remove();
+        }
+    }
+
+    /**
+     * Rounds a size to whole pixels, so nearly equal sizes share a sprite.
+     */
+    private static int pixels(double size) {
+        return size > 0 ? (int) Math.max(1, Math.round(size)) : 0;
+    }
+
+    /**
+     * Estimates the memory taken by an image's pixels, at four bytes each.
+     */
+    private static long sizeOf(Image image) {
+        return (long) image.getWidth() * (long) image.getHeight() * 4;
+    }
+
+    /**
+     * A sprite path and the size it is drawn at.
+     */
+    private static final class Key {
+        private final String path;
+        private final int width;
+        private final int height;
+
+        Key(String path, int width, int height) {
+            this.path = path;
+            this.width = width;
+            this.height = height;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return width == key.width && height == key.height && path.equals(key.path);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(path, width, height);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package stickman.view;
+
+import stickman.entity.Entity;
+
+import java.util.ArrayDeque;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Keeps the views of entities that have left the screen or the level, grouped by
+ * layer and sprite, and hands them out again to entities that appear. Bullets and
+ * entities scrolling into view then reuse a node that already has their sprite,
+ * rather than making a new one each time. Only used on the JavaFX application thread.
+ */
+final class ViewPool {
+
+    /**
+     * The most idle views kept for each layer and sprite. Views returned beyond
+     * this are dropped.
+     */
+    private static final int MAX_IDLE = 256;
+
+    /**
+     * Idle views by layer, then by the sprite of the entity they last showed.
+     */
+    private final Map<Entity.Layer, Map<String, ArrayDeque<EntityView>>> idle = new EnumMap<>(Entity.Layer.class);
+
+    /**
+     * Creates an empty ViewPool.
+     */
+    ViewPool() {
+        for (Entity.Layer layer : Entity.Layer.values()) {
+            idle.put(layer, new HashMap<>());
+        }
+    }
+
+    /**
+     * Gets a view for an entity, reusing an idle one on the same layer with the
+     * same sprite if there is one.
+     * @param entity The entity to show
+     * @return The view, not yet updated for the current frame
+     */
+    EntityView borrow(Entity entity) {
+        ArrayDeque<EntityView> views = idle.get(entity.getLayer()).get(entity.getImagePath());
+        if (views == null || views.isEmpty()) {
+            return new EntityViewImpl(entity);
+        }
+
+        EntityView view = views.pop();
+        view.bind(entity);
+        return view;
+    }
+
+    /**
+     * Takes back a view whose node has been removed from the scene.
+     * @param view The view, which must not be used again until it is borrowed
+     */
+    void release(EntityView view) {
+        Entity entity = view.getEntity();
+        ArrayDeque<EntityView> views = idle.get(entity.getLayer())
+                .computeIfAbsent(entity.getImagePath(), path -> new ArrayDeque<>());
+        view.bind(null); // Don't keep old levels alive
+        if (views.size() < MAX_IDLE) {
+            views.push(view);
+        }
+    }
+}
@@ -0,0 +1,364 @@
+package stickman.level;
+
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.json.simple.parser.ParseException;
+import org.junit.Test;
+import stickman.entity.Entity;
+import stickman.entity.Interactable;
+import stickman.entity.moving.MovingEntity;
+import stickman.entity.moving.enemy.DumbStrategy;
+import stickman.entity.moving.enemy.FollowStrategy;
+import stickman.entity.moving.enemy.Slime;
+import stickman.entity.still.Flag;
+import stickman.entity.still.Mushroom;
+import stickman.entity.still.Platform;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Checks that JsonLevelReader reads the bundled levels as json-simple did, and
+ * that malformed levels are reported at the right line and column.
+ */
+public class JsonLevelReaderTest {
+
+    /**
+     * A small valid level, a line per element so a test can replace one line.
+     */
+    private static final String[] LEVEL = {
+            "{",
+            "  \"stickmanSize\": \"normal\",",
+            "  \"stickmanPos\": {\"x\": 50.0},",
+            "  \"lives\": 3,",
+            "  \"levelDimensions\": {\"width\": 1000.0, \"height\": 500.0, \"floorHeight\": 300.0, \"time\": 60},",
+            "  \"platforms\": [{\"x\": 100.0, \"y\": 280.0}, {\"x\": 120.0, \"y\": 280.0}],",
+            "  \"mushrooms\": [{\"x\": 140.0, \"y\": 280.0}],",
+            "  \"enemies\": [{\"x\": 200.0, \"y\": 280.0, \"path\": \"slimeBa.png\", \"startLeft\": true, \"strategy\": \"dumb\"}],",
+            "  \"flag\": {\"x\": 900.0, \"y\": 260.0}",
+            "}"
+    };
+
+    @Test
+    public void readsTheBundledLevelsLikeJsonSimple() throws IOException, ParseException {
+        int levels = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(Paths.get("levels"), "*.json")) {
+            for (Path file : files) {
+                if (file.getFileName().toString().equals("levels.json")) {
+                    // The list of levels, not a level
+                    continue;
+                }
+
+                Recorder recorder = new Recorder();
+                try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                    new JsonLevelReader(reader, file.toString()).read(recorder);
+                }
+
+                JSONObject expected;
+                try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                    expected = (JSONObject) new JSONParser().parse(reader);
+                }
+                assertMatches(file.toString(), expected, recorder);
+                levels++;
+            }
+        }
+        assertTrue("No levels were found", levels > 0);
+    }
+
+    @Test
+    public void readsEveryMemberOfALevel() throws IOException {
+        Recorder level = read(String.join("\n", LEVEL));
+
+        assertEquals("stickmanSize", "normal", level.heroSize);
+        assertEquals("stickmanPos", 50.0, level.heroX, 0);
+        assertEquals("lives", 3, level.lives);
+        assertEquals("width", 1000.0, level.width, 0);
+        assertEquals("height", 500.0, level.height, 0);
+        assertEquals("floorHeight", 300.0, level.floorHeight, 0);
+        assertEquals("time", 60, level.time);
+        assertEquals("platforms", 2, level.platforms().size());
+        assertEquals("mushrooms", 1, level.mushrooms().size());
+        assertEquals("enemies", 1, level.enemies.size());
+        assertTrue("strategy", ((Slime) level.enemies.get(0)).getStrategy() instanceof DumbStrategy);
+
+        // The flag comes last, as it did with json-simple
+        Entity flag = level.staticEntities.get(level.staticEntities.size() - 1);
+        assertTrue("flag", flag instanceof Flag);
+        assertEquals("flag x", 900.0, flag.getXPos(), 0);
+    }
+
+    @Test
+    public void unknownStrategyIsReportedAtTheValue() {
+        String line = LEVEL[7].replace("\"dumb\"", "\"clever\"");
+        LevelFormatException e = readInvalid(7, line);
+
+        assertAt(e, 8, line.indexOf("\"clever\"") + 1);
+        assertTrue(e.getMessage(), e.getMessage().contains("unknown strategy 'clever', expected dumb or follow"));
+    }
+
+    @Test
+    public void missingColonIsReportedAtTheValue() {
+        String line = "  \"lives\" 3,";
+        LevelFormatException e = readInvalid(3, line);
+
+        assertAt(e, 4, line.indexOf('3') + 1);
+        assertTrue(e.getMessage(), e.getMessage().contains("expected ':' after \"lives\""));
+    }
+
+    @Test
+    public void wrongTypeIsReportedAtTheValue() {
+        String line = "  \"lives\": \"three\",";
+        LevelFormatException e = readInvalid(3, line);
+
+        assertAt(e, 4, line.indexOf("\"three\"") + 1);
+        assertTrue(e.getMessage(), e.getMessage().contains("a number for \"lives\""));
+    }
+
+    @Test
+    public void misspeltLiteralIsReportedWhereItStarts() {
+        String line = LEVEL[7].replace("true", "tru");
+        LevelFormatException e = readInvalid(7, line);
+
+        assertAt(e, 8, line.indexOf("tru") + 1);
+        assertTrue(e.getMessage(), e.getMessage().contains("expected true"));
+    }
+
+    @Test
+    public void badNumberIsReportedWhereItStarts() {
+        String line = "  \"stickmanPos\": {\"x\": 5.0.0},";
+        LevelFormatException e = readInvalid(2, line);
+
+        assertAt(e, 3, line.indexOf("5.0.0") + 1);
+        assertTrue(e.getMessage(), e.getMessage().contains("\"5.0.0\" isn't a number"));
+    }
+
+    @Test
+    public void missingMemberIsReportedAtTheEndOfTheLevel() {
+        LevelFormatException e = readInvalid(8, LEVEL[8].replace("\"flag\"", "\"flags\""));
+
+        assertAt(e, 10, 2);
+        assertTrue(e.getMessage(), e.getMessage().contains("the level has no \"flag\""));
+    }
+
+    @Test
+    public void truncatedFileIsReportedAtTheEnd() {
+        String line = "  \"stickmanSize\": \"nor";
+        LevelFormatException e = readInvalid("{\n" + line);
+
+        assertAt(e, 2, line.length() + 1);
+        assertTrue(e.getMessage(), e.getMessage().contains("the file ends inside a string"));
+    }
+
+    @Test
+    public void trailingContentIsReported() {
+        LevelFormatException e = readInvalid(String.join("\n", LEVEL) + "\n}");
+
+        assertAt(e, 11, 1);
+        assertTrue(e.getMessage(), e.getMessage().contains("expected the end of the file after the level"));
+    }
+
+    /**
+     * Reads a level from a string.
+     */
+    private static Recorder read(String json) throws IOException {
+        Recorder recorder = new Recorder();
+        new JsonLevelReader(new StringReader(json), "test.json").read(recorder);
+        return recorder;
+    }
+
+    /**
+     * Reads LEVEL with one line replaced, expecting it to be rejected.
+     */
+    private static LevelFormatException readInvalid(int index, String line) {
+        String[] lines = LEVEL.clone();
+        lines[index] = line;
+        return readInvalid(String.join("\n", lines));
+    }
+
+    /**
+     * Reads a level from a string, expecting it to be rejected.
+     */
+    private static LevelFormatException readInvalid(String json) {
+        try {
+            read(json);
+        } catch (LevelFormatException e) {
+            assertEquals("file", "test.json", e.getFile());
+            return e;
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+        fail("The level was read without an error");
+        return null;
+    }
+
+    private static void assertAt(LevelFormatException e, int line, int column) {
+        assertEquals(e.getMessage() + ": line", line, e.getLine());
+        assertEquals(e.getMessage() + ": column", column, e.getColumn());
+    }
+
+    /**
+     * Checks that a level read by JsonLevelReader has everything json-simple found in it.
+     */
+    private static void assertMatches(String file, JSONObject expected, Recorder actual) {
+        assertEquals(file + ": stickmanSize", expected.get("stickmanSize"), actual.heroSize);
+        assertEquals(file + ": stickmanPos", number(((JSONObject) expected.get("stickmanPos")).get("x")), actual.heroX, 0);
+        assertEquals(file + ": lives", (long) number(expected.get("lives")), actual.lives);
+
+        JSONObject dimensions = (JSONObject) expected.get("levelDimensions");
+        assertEquals(file + ": width", number(dimensions.get("width")), actual.width, 0);
+        assertEquals(file + ": height", number(dimensions.get("height")), actual.height, 0);
+        assertEquals(file + ": floorHeight", number(dimensions.get("floorHeight")), actual.floorHeight, 0);
+        assertEquals(file + ": time", (long) number(dimensions.get("time")), actual.time);
+
+        assertPositions(file + ": platforms", (JSONArray) expected.get("platforms"), actual.platforms());
+        assertPositions(file + ": mushrooms", (JSONArray) expected.get("mushrooms"), actual.mushrooms());
+
+        JSONArray enemies = (JSONArray) expected.get("enemies");
+        assertPositions(file + ": enemies", enemies, actual.enemies);
+        for (int i = 0; i < enemies.size(); i++) {
+            JSONObject enemy = (JSONObject) enemies.get(i);
+            Slime slime = (Slime) actual.enemies.get(i);
+            assertEquals(file + ": enemy " + i + " path", enemy.get("path"), slime.getImagePath());
+            assertEquals(file + ": enemy " + i + " startLeft", enemy.get("startLeft"), slime.isMovingLeft());
+            Class<?> strategy = "follow".equals(enemy.get("strategy")) ? FollowStrategy.class : DumbStrategy.class;
+            assertEquals(file + ": enemy " + i + " strategy", strategy, slime.getStrategy().getClass());
+        }
+
+        JSONObject flag = (JSONObject) expected.get("flag");
+        List<Entity> flags = new ArrayList<>();
+        for (Entity entity : actual.staticEntities) {
+            if (entity instanceof Flag) {
+                flags.add(entity);
+            }
+        }
+        assertPositions(file + ": flag", Collections.singletonList(flag), flags);
+    }
+
+    private static void assertPositions(String what, List<?> expected, List<? extends Entity> actual) {
+        assertEquals(what + " count", expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            JSONObject position = (JSONObject) expected.get(i);
+            assertEquals(what + " " + i + " x", number(position.get("x")), actual.get(i).getXPos(), 0);
+            assertEquals(what + " " + i + " y", number(position.get("y")), actual.get(i).getYPos(), 0);
+        }
+    }
+
+    private static double number(Object value) {
+        return ((Number) value).doubleValue();
+    }
+
+    /**
+     * A LevelBuilder that only keeps what it is given.
+     */
+    private static class Recorder implements LevelBuilder {
+        private final List<Entity> staticEntities = new ArrayList<>();
+        private final List<MovingEntity> enemies = new ArrayList<>();
+        private final List<Interactable> interactables = new ArrayList<>();
+        private String heroSize;
+        private double heroX;
+        private double width;
+        private double height;
+        private double floorHeight;
+        private long time;
+        private long lives;
+
+        List<Entity> platforms() {
+            List<Entity> platforms = new ArrayList<>();
+            for (Entity entity : staticEntities) {
+                if (entity instanceof Platform) {
+                    platforms.add(entity);
+                }
+            }
+            return platforms;
+        }
+
+        List<Entity> mushrooms() {
+            List<Entity> mushrooms = new ArrayList<>();
+            for (Entity entity : staticEntities) {
+                if (entity instanceof Mushroom) {
+                    mushrooms.add(entity);
+                }
+            }
+            return mushrooms;
+        }
+
+        @Override
+        public LevelBuilder addEnemy(MovingEntity enemy) {
+            enemies.add(enemy);
+            return this;
+        }
+
+        @Override
+        public LevelBuilder addStaticEntity(Entity entity) {
+            staticEntities.add(entity);
+            return this;
+        }
+
+        @Override
+        public LevelBuilder addInteractable(Interactable collectable) {
+            interactables.add(collectable);
+            return this;
+        }
+
+        @Override
+        public LevelBuilder setHero(double x, String size) {
+            this.heroX = x;
+            this.heroSize = size;
+            return this;
+        }
+
+        @Override
+        public LevelBuilder setFloorHeight(double height) {
+            this.floorHeight = height;
+            return this;
+        }
+
+        @Override
+        public LevelBuilder setDimensions(double width, double height) {
+            this.width = width;
+            this.height = height;
+            return this;
+        }
+
+        @Override
+        public LevelBuilder setTime(long time) {
+            this.time = time;
+            return this;
+        }
+
+        @Override
+        public LevelBuilder setLives(long lives) {
+            this.lives = lives;
+            return this;
+        }
+
+        @Override
+        public LevelBuilder setMergeSolids(boolean mergeSolids) {
+            return this;
+        }
+
+        @Override
+        public Level build() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public LevelTemplate buildTemplate() {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package stickman.level;
+
+import org.junit.Assume;
+import org.junit.Test;
+import stickman.model.GameManager;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Collections;
+
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that LevelManager.tick doesn't allocate once the game is running.
+ *
+ * The hero is upgraded and keeps firing, so bullets are always in flight and
+ * hitting platforms and slimes; that is the churn the tick used to allocate for.
+ * Only the ticks are measured, as firing is meant to make a new bullet.
+ *
+ * The first tick loads classes and sets up the profiler (about 150 KB), and
+ * the JIT occasionally allocates a few hundred bytes when it recompiles the
+ * tick, so the level is warmed up before measuring. After that a tick of
+ * default.json allocates nothing, so the threshold only leaves room for the
+ * JIT; a single object made every tick goes over it.
+ */
+public class TickAllocationTest {
+
+    private static final String LEVEL = "levels/default.json";
+
+    /**
+     * Ticks run before measuring, enough for the tick to be compiled.
+     */
+    private static final int WARMUP_TICKS = 20000;
+
+    private static final int MEASURED_TICKS = 20000;
+
+    /**
+     * Ticks between shots. A bullet takes longer than this to reach the first platform.
+     */
+    private static final int SHOT_INTERVAL = 16;
+
+    /**
+     * The most bytes a tick may allocate on average. The smallest object is 16 bytes.
+     */
+    private static final double MAX_BYTES_PER_TICK = 1.0;
+
+    @Test
+    public void tickDoesNotAllocate() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue("The JVM can't measure allocation",
+                threads instanceof com.sun.management.ThreadMXBean
+                        && ((com.sun.management.ThreadMXBean) threads).isThreadAllocatedMemorySupported());
+        com.sun.management.ThreadMXBean allocation = (com.sun.management.ThreadMXBean) threads;
+        allocation.setThreadAllocatedMemoryEnabled(true);
+        long thread = Thread.currentThread().getId();
+
+        GameManager model = new GameManager(Collections.singletonList(LEVEL));
+        Level level = model.getCurrentLevel();
+        level.getHero().upgrade();
+
+        for (int i = 0; i < WARMUP_TICKS; i++) {
+            if (i % SHOT_INTERVAL == 0) {
+                level.shoot();
+            }
+            level.tick();
+        }
+
+        // Reading the counter may allocate itself (it does on Java 11), so that is taken off each reading
+        long overhead = Long.MAX_VALUE;
+        for (int i = 0; i < 10; i++) {
+            long first = allocation.getThreadAllocatedBytes(thread);
+            overhead = Math.min(overhead, allocation.getThreadAllocatedBytes(thread) - first);
+        }
+
+        long allocated = 0;
+        int ticksWithBullets = 0;
+        for (int i = 0; i < MEASURED_TICKS; i += SHOT_INTERVAL) {
+            level.shoot();
+
+            long before = allocation.getThreadAllocatedBytes(thread);
+            for (int j = 0; j < SHOT_INTERVAL; j++) {
+                level.tick();
+            }
+            allocated += allocation.getThreadAllocatedBytes(thread) - before - overhead;
+
+            if (!level.getProj().isEmpty()) {
+                ticksWithBullets += SHOT_INTERVAL;
+            }
+        }
+
+        // A death or level change loads a new level, which is meant to allocate
+        assertSame("The level was replaced while measuring", level, model.getCurrentLevel());
+        assertTrue("No bullets were in flight while measuring", ticksWithBullets > MEASURED_TICKS / 2);
+
+        double perTick = (double) allocated / MEASURED_TICKS;
+        assertTrue(String.format("LevelManager.tick allocated %.2f bytes per tick (%d bytes over %d ticks)",
+                perTick, allocated, MEASURED_TICKS), perTick < MAX_BYTES_PER_TICK);
+    }
+}